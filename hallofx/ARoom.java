@@ -0,0 +1,47 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+// -------------- ABSTRACT ROOM CLASS --------------
+abstract class ARoom implements Comparable<ARoom> {
+    protected String roomId;
+    protected RoomType roomType;
+    protected double pricePerNight;
+    protected int capacity;
+    protected boolean isInService;
+    private int handle = -1; // dense index within its Hotel, -1 until added to one
+
+    public ARoom(String roomId, RoomType roomType, double pricePerNight, int capacity) {
+        this.roomId = roomId;
+        this.roomType = roomType;
+        this.pricePerNight = pricePerNight;
+        this.capacity = capacity;
+        this.isInService = true;
+    }
+
+    public String getRoomId() { return roomId; }
+    public RoomType getRoomType() { return roomType; }
+    public double getPricePerNight() { return pricePerNight; }
+    public int getCapacity() { return capacity; }
+    public boolean isInService() { return isInService; }
+    public void setInService(boolean inService) { this.isInService = inService; }
+    int getHandle() { return handle; }
+    void setHandle(int handle) { this.handle = handle; }
+
+    public abstract String getRoomSpecificDetails();
+
+    @Override
+    public int compareTo(ARoom other) {
+        // Natural sort order is by Room ID
+        if (other == null) return 1; // Basic null check
+        return this.roomId.compareTo(other.roomId);
+    }
+
+    @Override
+    public String toString() {
+        return "Room " + roomId + " - " + roomType + " (Service: " + (isInService ? "Yes" : "No") +
+               ", $" + String.format("%.2f", pricePerNight) + "/night, Capacity: " + capacity + ")";
+    }
+}
@@ -7,6 +7,7 @@ package hallofx;
 // App.java
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
@@ -23,13 +24,37 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 // import java.util.Comparator; // REMOVED - No longer needed
 
 public class App extends Application {
 
+    // Set by the loader thread before it hands over to the FX thread (finishStartup).
     private Hotel hotelManager;
+    private HotelStore hotelStore;
+    private QuoteEngine quoteEngine;
+    private Thread hotelLoader;
+    private BorderPane bottomAreaPane;
     private TableView<ARoom> roomTableView;
     private ObservableList<ARoom> roomObservableList;
     private Guest currentGuest;
@@ -37,10 +62,43 @@ public class App extends Application {
     private DatePicker bookingCheckInDatePicker;
     private DatePicker bookingCheckOutDatePicker;
 
+    // "Available for Dates" column: each row binds to its room's status property, so only
+    // rows whose status actually changes are redrawn. Statuses for a date range are
+    // computed in one batch off the FX thread and cached per (check-in, check-out).
+    // All of these are only touched on the FX thread.
+    private static final int AVAILABILITY_CACHE_SIZE = 32;
+    private final Map<String, SimpleStringProperty> availabilityByRoom = new HashMap<>();
+    private final Map<List<LocalDate>, Set<String>> availabilityCache =
+            new LinkedHashMap<List<LocalDate>, Set<String>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<LocalDate>, Set<String>> eldest) {
+                    return size() > AVAILABILITY_CACHE_SIZE;
+                }
+            };
+    private long availabilityRequest;     // bumped on every date change, drops stale results
+    private long roomChangeVersion;       // bumped on every booking/cancellation
+    private ExecutorService availabilityExecutor;
+
+    // Hotel changes arrive as events on the publisher's thread and are applied on the FX
+    // thread in batches: one runLater per burst of events, however many it holds.
+    private final Queue<HotelEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean eventDrainScheduled = new AtomicBoolean();
+    private volatile Flow.Subscription hotelEventSubscription;
+    private ObservableList<Booking> openBookingsList; // rows of the Manage Bookings dialog while it is open
+
+    // The window is shown right away with a loading placeholder and its controls disabled;
+    // the hotel data is read on a background thread, and once it is in memory the room
+    // list is filled and the controls are enabled. So time to the first window does not
+    // grow with the number of rooms and bookings.
     @Override
     public void start(Stage primaryStage) {
-        hotelManager = new Hotel();
+        long startNanos = System.nanoTime();
         roomObservableList = FXCollections.observableArrayList();
+        availabilityExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "availability-worker");
+            t.setDaemon(true);
+            return t;
+        });
 
         primaryStage.setTitle("HotelFX - Hotel Room Booking");
         BorderPane mainLayout = new BorderPane();
@@ -60,21 +118,22 @@ public class App extends Application {
         roomTableView = new TableView<>();
         setupRoomTableColumns();
         roomTableView.setItems(roomObservableList);
+        roomTableView.setPlaceholder(new Label("Loading hotel data..."));
         mainLayout.setCenter(roomTableView);
 
         // --- Bottom Pane (Date Pickers and Action Buttons) ---
-        BorderPane bottomAreaPane = new BorderPane();
+        bottomAreaPane = new BorderPane();
         bottomAreaPane.setPadding(new Insets(10, 0, 0, 0));
 
         Label checkInLabel = new Label("Check-in:");
         bookingCheckInDatePicker = new DatePicker();
         bookingCheckInDatePicker.setPromptText("Select Check-in");
-        bookingCheckInDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> roomTableView.refresh());
+        bookingCheckInDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> updateAvailabilityColumn());
 
         Label checkOutLabel = new Label("Check-out:");
         bookingCheckOutDatePicker = new DatePicker();
         bookingCheckOutDatePicker.setPromptText("Select Check-out");
-        bookingCheckOutDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> roomTableView.refresh());
+        bookingCheckOutDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> updateAvailabilityColumn());
 
         HBox datePickerBox = new HBox(5, checkInLabel, bookingCheckInDatePicker, checkOutLabel, bookingCheckOutDatePicker);
         datePickerBox.setAlignment(Pos.CENTER_LEFT);
@@ -91,19 +150,92 @@ public class App extends Application {
         bottomAreaPane.setRight(actionButtonBox);
 
         mainLayout.setBottom(bottomAreaPane);
-
-        populateInitialData();
-        refreshRoomList(); // This will populate and sort the list by Room ID
+        bottomAreaPane.setDisable(true); // until the hotel is loaded
 
         Scene scene = new Scene(mainLayout, 800, 550); // Height can be reduced as sort controls are gone
         primaryStage.setScene(scene);
         primaryStage.show();
+        System.out.printf("Window shown after %d ms, loading hotel data...%n", (System.nanoTime() - startNanos) / 1_000_000);
+
+        hotelLoader = new Thread(() -> {
+            try {
+                loadHotel();
+                Platform.runLater(() -> finishStartup(startNanos));
+            } catch (RuntimeException ex) {
+                System.out.println("Error: Could not load hotel data: " + ex);
+                Platform.runLater(() -> roomTableView.setPlaceholder(new Label("Could not load hotel data: " + ex.getMessage())));
+            }
+        }, "hotel-loader");
+        hotelLoader.setDaemon(true);
+        hotelLoader.start();
+    }
 
+    // Runs on the loader thread: everything that grows with the data.
+    private void loadHotel() {
+        try {
+            hotelStore = HotelStore.open(Paths.get("hotel-data"));
+            hotelManager = hotelStore.getHotel();
+        } catch (IOException ex) {
+            System.out.println("Error: Could not open hotel data, bookings will not be saved: " + ex.getMessage());
+            hotelManager = new Hotel();
+        }
+        hotelManager.getEventLog().enable(System.out, false); // console log of bookings, printed off the FX thread
+        if (hotelManager.getAllRooms().isEmpty()) {
+            populateInitialData(); // first start only; later starts recover rooms from hotel-data
+        }
+        quoteEngine = new QuoteEngine(hotelManager, 730); // flat base prices until rate rules are configured
         currentGuest = hotelManager.registerGuest("Default User", "default@example.com");
+    }
+
+    private void finishStartup(long startNanos) {
+        subscribeToHotelEvents();
+        loadRoomList(); // This will populate and sort the list by Room ID
+        roomTableView.setPlaceholder(new Label("No rooms."));
+        bottomAreaPane.setDisable(false);
+        System.out.printf("Hotel ready after %d ms: %d rooms, %d bookings.%n", (System.nanoTime() - startNanos) / 1_000_000,
+                hotelManager.getAllRooms().size(), hotelManager.getAllBookings().size());
         System.out.println("Default guest " + currentGuest.getName() + " (ID: " + currentGuest.getGuestId() + ") ready for bookings.");
     }
 
+    @Override
+    public void stop() {
+        Flow.Subscription subscription = hotelEventSubscription;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        availabilityExecutor.shutdownNow();
+        try {
+            hotelLoader.join(); // closed while still loading: let it finish so the store is closed properly
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (quoteEngine != null) {
+            quoteEngine.close();
+        }
+        if (hotelManager != null) {
+            hotelManager.getEventLog().disable();
+        }
+        if (hotelStore != null) {
+            try {
+                hotelStore.close();
+            } catch (IOException ex) {
+                System.out.println("Error: Could not save hotel data: " + ex.getMessage());
+            }
+        }
+    }
+
+    // First start: the property from hotel-import/ (rooms.csv, guests.csv, bookings.csv, see
+    // HotelBulkIO) if there is one, otherwise a few sample rooms.
     private void populateInitialData() {
+        Path importDirectory = Paths.get("hotel-import");
+        if (Files.isDirectory(importDirectory)) {
+            try {
+                System.out.println("Imported " + HotelBulkIO.importCsv(hotelManager, importDirectory) + " from " + importDirectory + ".");
+                return;
+            } catch (IOException | RuntimeException ex) {
+                System.out.println("Error: Could not import " + importDirectory + ", using sample rooms: " + ex.getMessage());
+            }
+        }
         hotelManager.addRoom(new StandardRoom("S101", 75.00, 2));
         hotelManager.addRoom(new DeluxeRoom("D201", 120.00, 2));
         hotelManager.addRoom(new SuiteRoom("U301", 250.00, 4));
@@ -138,36 +270,180 @@ public class App extends Application {
         capacityCol.setCellValueFactory(cellData -> new SimpleIntegerProperty(cellData.getValue().getCapacity()).asObject());
 
         TableColumn<ARoom, String> availableForDatesCol = new TableColumn<>("Available for Dates");
-        availableForDatesCol.setCellValueFactory(cellData -> {
-            ARoom room = cellData.getValue();
-            LocalDate checkIn = bookingCheckInDatePicker.getValue();
-            LocalDate checkOut = bookingCheckOutDatePicker.getValue();
-            String availabilityStatus;
-
-            if (checkIn != null && checkOut != null) {
-                if (!checkOut.isAfter(checkIn)) {
-                    availabilityStatus = "Invalid Dates";
-                } else {
-                    boolean isAvailable = hotelManager.isRoomAvailable(room, checkIn, checkOut);
-                    availabilityStatus = isAvailable ? "Yes" : "No";
+        availableForDatesCol.setCellValueFactory(cellData -> availabilityProperty(cellData.getValue()));
+
+        roomTableView.getColumns().setAll(roomIdCol, roomTypeCol, priceCol, capacityCol, availableForDatesCol);
+        roomTableView.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+    }
+
+    // REMOVED sortRoomList method
+
+    // Loads the room list once; bookings never change the set of rooms, so afterwards
+    // only availability statuses are updated.
+    private void loadRoomList() {
+        // Already in the natural order defined in ARoom.compareTo() (which is Room ID)
+        roomObservableList.setAll(hotelManager.getRoomsSortedById());
+        updateAvailabilityColumn();
+    }
+
+    private SimpleStringProperty availabilityProperty(ARoom room) {
+        return availabilityByRoom.computeIfAbsent(room.getRoomId(), id -> new SimpleStringProperty("Select Dates"));
+    }
+
+    private void updateAvailabilityColumn() {
+        LocalDate checkIn = bookingCheckInDatePicker.getValue();
+        LocalDate checkOut = bookingCheckOutDatePicker.getValue();
+        long request = ++availabilityRequest;
+        if (checkIn == null || checkOut == null) {
+            setAllAvailability("Select Dates");
+            return;
+        }
+        if (!checkOut.isAfter(checkIn)) {
+            setAllAvailability("Invalid Dates");
+            return;
+        }
+        List<LocalDate> dates = List.of(checkIn, checkOut);
+        Set<String> cached = availabilityCache.get(dates);
+        if (cached != null) {
+            applyAvailability(cached);
+            return;
+        }
+        setAllAvailability("Checking...");
+        long version = roomChangeVersion;
+        availabilityExecutor.execute(() -> {
+            Set<String> available = new HashSet<>();
+            for (ARoom room : hotelManager.findAvailableRooms(checkIn, checkOut, RoomSearchFilter.ANY)) {
+                available.add(room.getRoomId());
+            }
+            Platform.runLater(() -> {
+                if (version != roomChangeVersion) {
+                    // a booking landed while computing; the result may be stale for that room
+                    if (request == availabilityRequest) {
+                        updateAvailabilityColumn();
+                    }
+                    return;
+                }
+                availabilityCache.put(dates, available);
+                if (request == availabilityRequest) {
+                    applyAvailability(available);
                 }
+            });
+        });
+    }
+
+    private void applyAvailability(Set<String> availableRoomIds) {
+        for (ARoom room : roomObservableList) {
+            availabilityProperty(room).set(availableRoomIds.contains(room.getRoomId()) ? "Yes" : "No");
+        }
+    }
+
+    private void setAllAvailability(String status) {
+        for (ARoom room : roomObservableList) {
+            availabilityProperty(room).set(status);
+        }
+    }
+
+    // A booking or cancellation only changes its own room: patch that room in every cached
+    // date range and in the visible column instead of recomputing everything.
+    private void onRoomChanged(ARoom room) {
+        roomChangeVersion++;
+        for (Map.Entry<List<LocalDate>, Set<String>> entry : availabilityCache.entrySet()) {
+            List<LocalDate> dates = entry.getKey();
+            if (hotelManager.isRoomAvailable(room, dates.get(0), dates.get(1))) {
+                entry.getValue().add(room.getRoomId());
             } else {
-                availabilityStatus = "Select Dates";
+                entry.getValue().remove(room.getRoomId());
+            }
+        }
+        LocalDate checkIn = bookingCheckInDatePicker.getValue();
+        LocalDate checkOut = bookingCheckOutDatePicker.getValue();
+        if (checkIn != null && checkOut != null && checkOut.isAfter(checkIn)) {
+            availabilityProperty(room).set(hotelManager.isRoomAvailable(room, checkIn, checkOut) ? "Yes" : "No");
+        }
+    }
+
+    // -------------- HOTEL EVENTS --------------
+
+    private void subscribeToHotelEvents() {
+        hotelManager.getEvents().subscribe(new Flow.Subscriber<HotelEvent>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                hotelEventSubscription = subscription;
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(HotelEvent event) {
+                pendingEvents.add(event);
+                if (eventDrainScheduled.compareAndSet(false, true)) {
+                    Platform.runLater(App.this::applyHotelEvents);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                // fell behind and missed events: reload once and follow the stream again
+                Platform.runLater(App.this::reloadAfterMissedEvents);
+            }
+
+            @Override
+            public void onComplete() {
             }
-            return new SimpleStringProperty(availabilityStatus);
         });
+    }
 
-        roomTableView.getColumns().setAll(roomIdCol, roomTypeCol, priceCol, capacityCol, availableForDatesCol);
-        roomTableView.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+    // Applying an event twice is harmless, so events overlapping a reload need no care.
+    private void applyHotelEvents() {
+        eventDrainScheduled.set(false);
+        Set<ARoom> changedRooms = new LinkedHashSet<>();
+        HotelEvent event;
+        while ((event = pendingEvents.poll()) != null) {
+            if (event instanceof HotelEvent.RoomAdded) {
+                ARoom room = ((HotelEvent.RoomAdded) event).getRoom();
+                int index = Collections.binarySearch(roomObservableList, room);
+                if (index < 0) {
+                    roomObservableList.add(-index - 1, room); // keeps the Room ID order
+                }
+                changedRooms.add(room);
+            } else if (event instanceof HotelEvent.RoomServiceChanged) {
+                changedRooms.add(((HotelEvent.RoomServiceChanged) event).getRoom());
+            } else if (event instanceof HotelEvent.BookingCreated) {
+                Booking booking = ((HotelEvent.BookingCreated) event).getBooking();
+                changedRooms.add(booking.getRoom());
+                updateBookingRow(booking);
+            } else if (event instanceof HotelEvent.BookingCancelled) {
+                Booking booking = ((HotelEvent.BookingCancelled) event).getBooking();
+                changedRooms.add(booking.getRoom());
+                updateBookingRow(booking);
+            }
+        }
+        for (ARoom room : changedRooms) {
+            onRoomChanged(room);
+        }
     }
 
-    // REMOVED sortRoomList method
+    // Inserts or refreshes the booking's row in the open Manage Bookings table (kept in ID order).
+    private void updateBookingRow(Booking booking) {
+        if (openBookingsList == null) {
+            return;
+        }
+        int index = Collections.binarySearch(openBookingsList, booking, Comparator.comparingInt(Booking::getHandle));
+        if (index >= 0) {
+            openBookingsList.set(index, booking); // redraws the row, e.g. its new status
+        } else {
+            openBookingsList.add(-index - 1, booking);
+        }
+    }
 
-    private void refreshRoomList() {
-        roomObservableList.setAll(hotelManager.getAllRooms()); // Get all rooms
-        // Always sort by the natural order defined in ARoom.compareTo() (which is Room ID)
-        FXCollections.sort(roomObservableList);
-        roomTableView.refresh(); // Ensure visual update for all cells
+    private void reloadAfterMissedEvents() {
+        pendingEvents.clear();
+        subscribeToHotelEvents();
+        roomChangeVersion++;
+        availabilityCache.clear();
+        loadRoomList();
+        if (openBookingsList != null) {
+            openBookingsList.setAll(hotelManager.getAllBookings());
+        }
     }
 
     private void handleBookSelectedRoom() {
@@ -196,12 +472,20 @@ public class App extends Application {
             return;
         }
 
+        // Priced before booking, so a stay that cannot be quoted is refused instead of booked
+        // and then reported as a failure.
+        Quote quote;
+        try {
+            quote = quoteEngine.quote(selectedRoom, desiredCheckIn, desiredCheckOut);
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            showAlert(Alert.AlertType.ERROR, "Price Unavailable", ex.getMessage());
+            return;
+        }
         try {
             Booking booking = hotelManager.createBooking(currentGuest, selectedRoom.getRoomId(), desiredCheckIn, desiredCheckOut);
             showAlert(Alert.AlertType.INFORMATION, "Booking Successful",
                     "Booking " + booking.getBookingId() + " confirmed for room " + selectedRoom.getRoomId() +
-                    " from " + desiredCheckIn + " to " + desiredCheckOut);
-            refreshRoomList(); // Refresh and re-sort
+                    " from " + desiredCheckIn + " to " + desiredCheckOut + ". Total: $" + quote.getTotal());
         } catch (IllegalArgumentException | IllegalStateException ex) {
             showAlert(Alert.AlertType.ERROR, "Booking Failed", ex.getMessage());
         }
@@ -250,8 +534,7 @@ public class App extends Application {
                 try {
                     hotelManager.cancelBooking(selectedBooking.getBookingId());
                     showAlert(Alert.AlertType.INFORMATION, "Cancellation Successful", "Booking " + selectedBooking.getBookingId() + " has been cancelled.");
-                    bookingsObservableList.setAll(hotelManager.getAllBookings());
-                    refreshRoomList(); // Refresh main list as availability might change and to re-sort
+                    // the BookingCancelled event updates this row and the room's availability
                 } catch (Exception ex) {
                     showAlert(Alert.AlertType.ERROR, "Cancellation Failed", ex.getMessage());
                 }
@@ -267,7 +550,9 @@ public class App extends Application {
 
         Scene bookingsScene = new Scene(bookingsLayout, 700, 450);
         bookingsStage.setScene(bookingsScene);
+        openBookingsList = bookingsObservableList;
         bookingsStage.showAndWait();
+        openBookingsList = null;
     }
 
     private void showAlert(Alert.AlertType alertType, String title, String message) {
@@ -0,0 +1,41 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+// -------------- BOOKING CLASS --------------
+// Identified internally by an int handle; the "B<handle>" string ID exists only at the API edge.
+class Booking {
+    private int handle;
+    private Guest guest;
+    private ARoom room;
+    private LocalDate checkInDate;
+    private LocalDate checkOutDate;
+    private volatile BookingStatus status;
+
+    public Booking(int handle, Guest guest, ARoom room, LocalDate checkInDate, LocalDate checkOutDate) {
+        this.handle = handle;
+        this.guest = guest;
+        this.room = room;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+        this.status = BookingStatus.CONFIRMED;
+        long numberOfNights = ChronoUnit.DAYS.between(checkInDate, checkOutDate);
+        if (numberOfNights <= 0) throw new IllegalArgumentException("Check-out date must be after check-in date.");
+    }
+    // For views that read every field from elsewhere (see MappedBookingStore.BookingRow).
+    protected Booking() { }
+    int getHandle() { return handle; }
+    public String getBookingId() { return "B" + getHandle(); }
+    public Guest getGuest() { return guest; }
+    public ARoom getRoom() { return room; }
+    public LocalDate getCheckInDate() { return checkInDate; }
+    public LocalDate getCheckOutDate() { return checkOutDate; }
+    public BookingStatus getStatus() { return status; }
+    public void setBookingStatus(BookingStatus status) { this.status = status; }
+    @Override public String toString() { return "Booking ID: " + getBookingId() + ", Guest: " + getGuest().getName() + ", Room: " + getRoom().getRoomId() + ", Dates: " + getCheckInDate() + " to " + getCheckOutDate() + ", Status: " + getStatus(); }
+}
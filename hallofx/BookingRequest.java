@@ -0,0 +1,29 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.time.LocalDate;
+
+// -------------- BOOKING REQUEST --------------
+// One stay of a group/block reservation passed to Hotel.createBookings.
+class BookingRequest {
+    private final Guest guest;
+    private final String roomId;
+    private final LocalDate checkInDate;
+    private final LocalDate checkOutDate;
+
+    public BookingRequest(Guest guest, String roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        this.guest = guest;
+        this.roomId = roomId;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+    }
+
+    public Guest getGuest() { return guest; }
+    public String getRoomId() { return roomId; }
+    public LocalDate getCheckInDate() { return checkInDate; }
+    public LocalDate getCheckOutDate() { return checkOutDate; }
+    @Override public String toString() { return "Room " + roomId + " from " + checkInDate + " to " + checkOutDate; }
+}
@@ -0,0 +1,10 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+// -------------- BOOKING STATUS --------------
+enum BookingStatus {
+    CONFIRMED, CANCELLED
+}
@@ -0,0 +1,14 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+// -------------- DELUXE ROOM --------------
+class DeluxeRoom extends ARoom {
+    public DeluxeRoom(String roomId, double pricePerNight, int capacity) { super(roomId, RoomType.DELUXE, pricePerNight, capacity); }
+    @Override 
+    public String getRoomSpecificDetails() { 
+        return "Deluxe Room features: Enhanced amenities and more spacious.";
+    }
+}
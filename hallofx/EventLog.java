@@ -0,0 +1,205 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// -------------- ASYNC EVENT LOG --------------
+// Structured events from the Hotel go into a fixed-size ring buffer; a background thread
+// formats and prints them. Producers never block, format strings or allocate: they store
+// the event type and two references that already exist (a room, a booking ID...) in a
+// preallocated slot. When the ring is full the event is dropped and counted instead.
+// Disabled (the default) the whole cost of log() is one volatile read. An idle drainer
+// parks until a producer unparks it; it announces itself first, as in HotelEventPublisher,
+// so producers only pay for unpark() when it is actually asleep.
+class EventLog {
+    enum Type {
+        ROOM_ADDED(false),
+        ROOM_REJECTED_NULL(false),
+        ROOM_REJECTED_DUPLICATE(false),
+        GUEST_REGISTERED(false),
+        GUEST_ALREADY_REGISTERED(false),
+        BOOKING_CREATED(false),
+        BOOKING_CANCELLED(false),
+        BOOKING_ALREADY_CANCELLED(false),
+        BOOKINGS_ARCHIVED(false),
+        TYPE_BOOKING_CREATED(false),
+        TYPE_BOOKING_CANCELLED(false),
+        ROOMS_ASSIGNED(false),
+        AVAILABILITY_INVALID(true),
+        ROOM_NOT_MANAGED(true),
+        ROOM_OUT_OF_SERVICE(true),
+        AVAILABILITY_CONFLICT(true),
+        AVAILABILITY_ARCHIVED(true);
+
+        final boolean debug;
+
+        Type(boolean debug) { this.debug = debug; }
+    }
+
+    private final int mask;
+    private final Type[] types;
+    private final Object[] subjects;
+    private final Object[] details;
+    private final AtomicLongArray published; // slot i holds seq + 1 once event seq is fully written
+    private final AtomicLong claimed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long consumed;
+    private volatile boolean enabled;
+    private volatile boolean includeDebug;
+    private volatile Thread drainer;
+    private volatile Thread parked; // the drainer while it is (about to be) parked, else null
+
+    public EventLog(int capacityPowerOfTwo) {
+        if (Integer.bitCount(capacityPowerOfTwo) != 1) {
+            throw new IllegalArgumentException("Event log capacity must be a power of two.");
+        }
+        this.mask = capacityPowerOfTwo - 1;
+        this.types = new Type[capacityPowerOfTwo];
+        this.subjects = new Object[capacityPowerOfTwo];
+        this.details = new Object[capacityPowerOfTwo];
+        this.published = new AtomicLongArray(capacityPowerOfTwo);
+    }
+
+    public void log(Type type, Object subject, Object detail) {
+        if (!isEnabled(type)) {
+            return;
+        }
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed > mask) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+        int slot = (int) (seq & mask);
+        types[slot] = type;
+        subjects[slot] = subject;
+        details[slot] = detail;
+        // A full write, ordered before the read of parked, or a drainer going to sleep
+        // could miss this event.
+        published.set(slot, seq + 1);
+        Thread sleeper = parked;
+        if (sleeper != null) {
+            LockSupport.unpark(sleeper);
+        }
+    }
+
+    // Starts printing events to sink on a daemon thread.
+    public synchronized void enable(PrintStream sink, boolean withDebugEvents) {
+        includeDebug = withDebugEvents;
+        if (drainer == null) {
+            Thread thread = new Thread(() -> drainLoop(sink), "hotel-event-log");
+            thread.setDaemon(true);
+            drainer = thread;
+            enabled = true;
+            thread.start();
+        }
+    }
+
+    // Stops accepting events, prints what is already queued and stops the thread.
+    public synchronized void disable() {
+        enabled = false;
+        Thread thread = drainer;
+        drainer = null;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isEnabled() { return enabled; }
+    // Whether log(type, ...) would record anything, for callers that build their detail.
+    public boolean isEnabled(Type type) { return enabled && (!type.debug || includeDebug); }
+    public long getDroppedCount() { return dropped.sum(); }
+
+    private void drainLoop(PrintStream sink) {
+        Thread self = Thread.currentThread();
+        while (true) {
+            long next = consumed;
+            int slot = (int) (next & mask);
+            if (published.get(slot) == next + 1) {
+                Type type = types[slot];
+                Object subject = subjects[slot];
+                Object detail = details[slot];
+                subjects[slot] = null;
+                details[slot] = null;
+                consumed = next + 1;
+                sink.println(format(type, subject, detail));
+            } else if (drainer != self && claimed.get() == next) {
+                return; // disabled and fully drained
+            } else {
+                parked = self;
+                if (published.get(slot) != next + 1 && (drainer == self || claimed.get() != next)) {
+                    LockSupport.park(this);
+                }
+                parked = null;
+            }
+        }
+    }
+
+    // The wording matches what Hotel used to print directly.
+    static String format(Type type, Object subject, Object detail) {
+        switch (type) {
+            case ROOM_ADDED: {
+                ARoom room = (ARoom) subject;
+                return room.getRoomType() + " Room " + room.getRoomId() + " added. Features: " + room.getRoomSpecificDetails();
+            }
+            case ROOM_REJECTED_NULL:
+                return "Error: Room or Room ID cannot be null.";
+            case ROOM_REJECTED_DUPLICATE:
+                return "Error: Room with ID " + subject + " already exists.";
+            case GUEST_REGISTERED: {
+                Guest guest = (Guest) subject;
+                return "Guest " + guest.getName() + " registered with ID " + guest.getGuestId();
+            }
+            case GUEST_ALREADY_REGISTERED: {
+                Guest guest = (Guest) subject;
+                return "Info: Guest with email " + guest.getEmail() + " already registered with ID " + guest.getGuestId();
+            }
+            case BOOKING_CREATED: {
+                Booking booking = (Booking) subject;
+                return "Booking " + booking.getBookingId() + " created for " + booking.getGuest().getName() + " in room "
+                     + booking.getRoom().getRoomId() + " from " + booking.getCheckInDate() + " to " + booking.getCheckOutDate();
+            }
+            case BOOKING_CANCELLED:
+                return "Booking " + subject + " cancelled.";
+            case BOOKING_ALREADY_CANCELLED:
+                return "Info: Booking " + subject + " is already cancelled.";
+            case BOOKINGS_ARCHIVED:
+                return subject + " bookings archived; nights before " + detail + " can no longer be booked.";
+            case TYPE_BOOKING_CREATED: {
+                RoomTypeBooking typeBooking = (RoomTypeBooking) subject;
+                return "Type booking " + typeBooking.getTypeBookingId() + " created for " + typeBooking.getGuest().getName() + " in a "
+                     + typeBooking.getRoomType() + " room from " + typeBooking.getCheckInDate() + " to " + typeBooking.getCheckOutDate();
+            }
+            case TYPE_BOOKING_CANCELLED:
+                return "Type booking " + subject + " cancelled.";
+            case ROOMS_ASSIGNED:
+                return subject + " type bookings given a room; " + detail + " still without one.";
+            case AVAILABILITY_INVALID:
+                return "Debug: Invalid parameters for isRoomAvailable or dates not logical.";
+            case ROOM_NOT_MANAGED:
+                return "Debug: Room " + subject + " is not managed by this hotel.";
+            case ROOM_OUT_OF_SERVICE:
+                return "Debug: Room " + subject + " is not in service.";
+            case AVAILABILITY_CONFLICT:
+                return "Debug: Room " + subject + " conflicts with existing booking " + ((Booking) detail).getBookingId();
+            case AVAILABILITY_ARCHIVED:
+                return "Debug: Room " + subject + " requested for nights before the archive horizon " + detail;
+            default:
+                return type + " " + subject + " " + detail;
+        }
+    }
+}
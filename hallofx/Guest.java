@@ -0,0 +1,34 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+// -------------- GUEST CLASS --------------
+// Identified internally by an int handle; the "G<handle>" string ID exists only at the API edge.
+class Guest {
+    private final int handle;
+    private String name;
+    private String email;
+    public Guest(int handle, String name, String email) {
+        this.handle = handle;
+        this.name = name;
+        this.email = email;
+    }
+    int getHandle() { return handle; }
+    public String getGuestId() { return "G" + handle; }
+    public String getName() { return name; }
+    public String getEmail() { return email; }
+    @Override public String toString() { return "Guest: " + name + " (ID: " + getGuestId() + ")"; }
+    @Override public boolean equals(Object o) { 
+        if (this == o) 
+            return true; 
+        if (o == null || getClass() != o.getClass()) 
+            return false; 
+        Guest guest = (Guest) o;
+        return handle == guest.handle; 
+    }
+    @Override public int hashCode() { 
+        return Integer.hashCode(handle); 
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+// -------------- HANDLE TABLE --------------
+// Map from a dense int handle (the number in "G12" / "B7", or a room's index) to its
+// object, stored as chunks of 4,096 slots so a million bookings cost ~4 MB of references
+// instead of a hash node, a boxed or String key and a skip-list node each.
+// Reads and writes of different slots are lock-free; only allocating a new chunk locks.
+class HandleTable<T> {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile AtomicReferenceArray<T>[] chunks = newDirectory(16);
+    private final AtomicInteger limit = new AtomicInteger(); // one past the highest handle ever stored
+
+    public T get(int handle) {
+        AtomicReferenceArray<T> chunk = chunkOf(handle);
+        return chunk == null ? null : chunk.get(handle & CHUNK_MASK);
+    }
+
+    public void put(int handle, T value) {
+        chunkFor(handle).set(handle & CHUNK_MASK, value);
+        limit.accumulateAndGet(handle + 1, Math::max);
+    }
+
+    // Stores the value unless the slot is taken; returns the previous value, or null if stored.
+    public T putIfAbsent(int handle, T value) {
+        AtomicReferenceArray<T> chunk = chunkFor(handle);
+        if (chunk.compareAndSet(handle & CHUNK_MASK, null, value)) {
+            limit.accumulateAndGet(handle + 1, Math::max);
+            return null;
+        }
+        return chunk.get(handle & CHUNK_MASK);
+    }
+
+    // Empties the slot; later forEach calls skip it.
+    public void remove(int handle) {
+        AtomicReferenceArray<T> chunk = chunkOf(handle);
+        if (chunk != null) {
+            chunk.set(handle & CHUNK_MASK, null);
+        }
+    }
+
+    public int limit() { return limit.get(); }
+
+    // Visits the stored values in handle order.
+    public void forEach(Consumer<? super T> action) {
+        int end = limit.get();
+        AtomicReferenceArray<T>[] directory = this.chunks;
+        for (int c = 0; c < directory.length && (c << CHUNK_BITS) < end; c++) {
+            AtomicReferenceArray<T> chunk = directory[c];
+            if (chunk == null) {
+                continue;
+            }
+            int slots = Math.min(CHUNK_SIZE, end - (c << CHUNK_BITS));
+            for (int i = 0; i < slots; i++) {
+                T value = chunk.get(i);
+                if (value != null) {
+                    action.accept(value);
+                }
+            }
+        }
+    }
+
+    // The chunk holding the handle, or null if it was never allocated.
+    private AtomicReferenceArray<T> chunkOf(int handle) {
+        if (handle < 0) {
+            return null;
+        }
+        AtomicReferenceArray<T>[] directory = this.chunks;
+        int chunk = handle >>> CHUNK_BITS;
+        return chunk < directory.length ? directory[chunk] : null;
+    }
+
+    private AtomicReferenceArray<T> chunkFor(int handle) {
+        if (handle < 0) {
+            throw new IllegalArgumentException("Handle cannot be negative: " + handle);
+        }
+        int chunk = handle >>> CHUNK_BITS;
+        AtomicReferenceArray<T>[] directory = this.chunks;
+        if (chunk < directory.length && directory[chunk] != null) {
+            return directory[chunk];
+        }
+        // Chunks are only installed under this lock, so growing the directory never drops one
+        synchronized (this) {
+            directory = this.chunks;
+            if (chunk >= directory.length) {
+                AtomicReferenceArray<T>[] grown = newDirectory(Math.max(chunk + 1, directory.length * 2));
+                System.arraycopy(directory, 0, grown, 0, directory.length);
+                directory = grown;
+            }
+            if (directory[chunk] == null) {
+                directory[chunk] = new AtomicReferenceArray<>(CHUNK_SIZE);
+            }
+            this.chunks = directory; // volatile write publishes the new chunk
+            return directory[chunk];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> AtomicReferenceArray<T>[] newDirectory(int length) {
+        return (AtomicReferenceArray<T>[]) new AtomicReferenceArray<?>[length];
+    }
+}
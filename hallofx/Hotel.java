@@ -0,0 +1,1502 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// -------------- HOTEL MANAGEMENT CLASS --------------
+// Safe for concurrent use: lookups are lock-free, bookings lock only the calendar of the
+// room being booked, so bookings for different rooms proceed in parallel.
+// Rooms, guests and bookings are keyed internally by dense int handles (room index, guest
+// and booking number); string IDs are only parsed or looked up at the public API.
+// With an archive attached, archiveBookings moves cancelled and finished stays out of the
+// live tables into it, so they stop costing heap and calendar space; findBooking still
+// finds them there.
+// Every night's sales per RoomType are also counted in a TypeInventory, so stays can be
+// sold against a type (bookRoomType) and given a room later.
+class Hotel {
+    static final int MAX_STAY_NIGHTS = 3660; // every night of a stay costs work under its room's lock
+
+    private final Map<String, ARoom> rooms; // room IDs are free-form, so this stays the API-edge lookup
+    private final List<ARoom> roomsInOrder; // guarded by roomsLock
+    private final Object roomsLock = new Object();
+    private volatile RoomViews roomViews; // null until first read after a room is added
+    private final HandleTable<Guest> guests; // by guest handle
+    private final Map<String, Guest> guestsByEmail;
+    private final HandleTable<Booking> bookings; // by booking handle, so also in booking ID order
+    private final AtomicLong bookingsVersion = new AtomicLong(); // bumped after each booking is added
+    private volatile BookingsView bookingsView;
+    private final HandleTable<RoomCalendar> roomCalendars; // by room handle
+    private final HandleTable<RoomTypeBooking> typeBookings = new HandleTable<>(); // by type booking handle
+    private final TypeInventory inventory = new TypeInventory();
+    private final AtomicInteger nextTypeBookingHandle = new AtomicInteger(1);
+    private final OccupancyCalendar occupancy = new OccupancyCalendar();
+    private final AtomicInteger nextGuestHandle = new AtomicInteger(1);
+    private final AtomicInteger nextBookingHandle = new AtomicInteger(1);
+    private volatile HotelJournal journal; // null when running purely in memory
+    private final HotelMetrics metrics = new HotelMetrics();
+    private final EventLog eventLog = new EventLog(1 << 14);
+    private final HotelEventPublisher events = new HotelEventPublisher(1 << 16);
+    private volatile MappedBookingStore archive; // null when bookings are never archived
+    private volatile long archivedBeforeDay = Long.MIN_VALUE; // nights before this epoch day cannot be booked
+    private final Object archiveLock = new Object();
+
+    public Hotel() {
+        this.rooms = new ConcurrentHashMap<>();
+        this.roomsInOrder = new ArrayList<>();
+        this.guests = new HandleTable<>();
+        this.guestsByEmail = new ConcurrentHashMap<>();
+        this.bookings = new HandleTable<>();
+        this.roomCalendars = new HandleTable<>();
+    }
+
+    public HotelMetrics getMetrics() { return metrics; }
+    public EventLog getEventLog() { return eventLog; }
+    // Ordered stream of every change made through this Hotel's public methods (recovery excluded).
+    public HotelEventPublisher getEvents() { return events; }
+
+    public ARoom findRoom(String roomId) {
+        if (roomId == null) {
+            return null;
+        }
+        long start = metrics.startTimer();
+        ARoom room = this.rooms.get(roomId);
+        metrics.lookups.increment();
+        metrics.stopTimer(metrics.lookupLatency, start);
+        return room;
+    }
+
+    public Booking findBooking(String bookingId) {
+        if (bookingId == null) {
+            return null;
+        }
+        long start = metrics.startTimer();
+        int handle = handleOf(bookingId, 'B');
+        Booking booking = this.bookings.get(handle);
+        if (booking == null) {
+            MappedBookingStore a = this.archive;
+            booking = a == null ? null : a.find(handle);
+        }
+        metrics.lookups.increment();
+        metrics.stopTimer(metrics.lookupLatency, start);
+        return booking;
+    }
+
+    public Guest findGuest(String guestId) {
+        if (guestId == null) {
+            return null;
+        }
+        metrics.lookups.increment();
+        return this.guests.get(handleOf(guestId, 'G'));
+    }
+
+    Guest findGuest(int guestHandle) {
+        return this.guests.get(guestHandle);
+    }
+
+    // True if the guest is the one registered here under its ID, not a copy or a guest of
+    // another hotel, so bookings always point at a guest the snapshot and journal know.
+    private boolean isRegistered(Guest guest) {
+        return this.guests.get(guest.getHandle()) == guest;
+    }
+
+    public Guest findGuestByEmail(String email) {
+        String key = emailKey(email);
+        if (key == null) {
+            return null;
+        }
+        return this.guestsByEmail.get(key);
+    }
+
+    public List<Guest> getAllGuests() {
+        List<Guest> all = new ArrayList<>();
+        this.guests.forEach(all::add);
+        return all;
+    }
+
+    private static String emailKey(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Archived bookings go to, and are looked up in, the given store. Attach before recovery,
+    // so bookings that were archived are not restored into the live tables again.
+    void attachArchive(MappedBookingStore archive) {
+        this.archive = archive;
+        this.archivedBeforeDay = archive == null ? Long.MIN_VALUE : archive.getMarkDay();
+    }
+
+    // Every later mutation is appended to the journal, and durable, before it changes
+    // anything in memory: if the write fails, the call fails and the hotel is as it was.
+    // Events are published only after that. Attach after recovery so replayed state is not
+    // journaled twice.
+    void attachJournal(HotelJournal journal) {
+        this.journal = journal;
+    }
+
+    public void addRoom(ARoom room) {
+        if (room == null || room.getRoomId() == null) {
+            eventLog.log(EventLog.Type.ROOM_REJECTED_NULL, null, null);
+            return;
+        }
+        HotelJournal j = enterJournal();
+        try {
+            synchronized (roomsLock) {
+                if (findRoom(room.getRoomId()) != null) {
+                    eventLog.log(EventLog.Type.ROOM_REJECTED_DUPLICATE, room.getRoomId(), null);
+                    return;
+                }
+                if (j != null) {
+                    j.awaitDurable(j.logRoomAdded(room));
+                }
+                insertRoom(room);
+                events.publish(new HotelEvent.RoomAdded(room));
+            }
+        } finally {
+            exitJournal(j);
+        }
+        metrics.roomsAdded.increment();
+        eventLog.log(EventLog.Type.ROOM_ADDED, room, null);
+    }
+
+    // Caller must hold roomsLock.
+    private boolean insertRoom(ARoom room) {
+        return insertRoom(room, false);
+    }
+
+    // With lockCalendar the room's calendar is locked by the calling thread before the room
+    // can be found, so nothing is booked in it until the caller unlocks it.
+    private boolean insertRoom(ARoom room, boolean lockCalendar) {
+        if (findRoom(room.getRoomId()) != null) {
+            return false;
+        }
+        if (room.getHandle() >= 0) {
+            throw new IllegalArgumentException("Room " + room.getRoomId() + " already belongs to a hotel.");
+        }
+        int roomIndex = this.roomsInOrder.size();
+        room.setHandle(roomIndex);
+        RoomCalendar calendar = new RoomCalendar(room, roomIndex);
+        if (lockCalendar) {
+            calendar.lock();
+        }
+        this.roomCalendars.put(roomIndex, calendar);
+        this.occupancy.addRoom(roomIndex, room.getRoomType(), room.isInService());
+        this.rooms.put(room.getRoomId(), room);
+        this.roomsInOrder.add(room);
+        this.roomViews = null;
+        return true;
+    }
+
+    // Dense index of the room in this hotel (insertion order), or -1 if it is not ours.
+    int roomIndexOf(String roomId) {
+        ARoom room = roomId == null ? null : rooms.get(roomId);
+        return room == null ? -1 : room.getHandle();
+    }
+
+    // The room's calendar, or null if the room is not managed by this hotel.
+    private RoomCalendar calendarOf(ARoom room) {
+        RoomCalendar calendar = roomCalendars.get(room.getHandle());
+        return calendar != null && calendar.getRoom() == room ? calendar : null;
+    }
+
+    ARoom roomAt(int roomIndex) {
+        List<ARoom> inOrder = roomViews().inOrder;
+        return roomIndex >= 0 && roomIndex < inOrder.size() ? inOrder.get(roomIndex) : null;
+    }
+
+    // -------------- ROOM LISTINGS --------------
+    // Rooms are added rarely and listed constantly, so the listings are read-only snapshots
+    // built once after a change (the sorts included) and shared by every reader until the
+    // next addRoom. Range and page queries binary-search a snapshot and return a subList
+    // view of it, so none of these copy or sort anything in steady state.
+
+    // Read-only, in insertion order (the order of the dense room indexes).
+    public List<ARoom> getAllRooms() {
+        return roomViews().inOrder;
+    }
+
+    // Read-only, ordered by room ID (ARoom's natural order).
+    public List<ARoom> getRoomsSortedById() {
+        return roomViews().byId;
+    }
+
+    // Read-only, ordered by price per night, then room ID.
+    public List<ARoom> getRoomsSortedByPrice() {
+        return roomViews().byPrice;
+    }
+
+    // Rooms with fromRoomId <= ID < toRoomId, ordered by ID. Either bound may be null for open-ended.
+    public List<ARoom> getRoomsInIdRange(String fromRoomId, String toRoomId) {
+        List<ARoom> byId = roomViews().byId;
+        int from = fromRoomId == null ? 0 : firstIdAtLeast(byId, fromRoomId);
+        int to = toRoomId == null ? byId.size() : firstIdAtLeast(byId, toRoomId);
+        return byId.subList(from, Math.max(from, to));
+    }
+
+    // Up to limit rooms ordered by ID, starting just after afterRoomId (null for the first page).
+    public List<ARoom> getRoomsPage(String afterRoomId, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Page size cannot be negative.");
+        }
+        List<ARoom> byId = roomViews().byId;
+        int from = 0;
+        if (afterRoomId != null) {
+            from = firstIdAtLeast(byId, afterRoomId);
+            if (from < byId.size() && byId.get(from).getRoomId().equals(afterRoomId)) {
+                from++;
+            }
+        }
+        return byId.subList(from, Math.min(byId.size(), from + limit));
+    }
+
+    // Rooms priced between minPrice and maxPrice per night (inclusive), cheapest first.
+    public List<ARoom> getRoomsInPriceRange(double minPrice, double maxPrice) {
+        List<ARoom> byPrice = roomViews().byPrice;
+        int from = firstPriceAbove(byPrice, minPrice, false);
+        int to = firstPriceAbove(byPrice, maxPrice, true);
+        return byPrice.subList(from, Math.max(from, to));
+    }
+
+    private RoomViews roomViews() {
+        RoomViews views = this.roomViews;
+        if (views == null) {
+            synchronized (roomsLock) {
+                views = this.roomViews;
+                if (views == null) {
+                    views = new RoomViews(this.roomsInOrder);
+                    this.roomViews = views;
+                }
+            }
+        }
+        return views;
+    }
+
+    private static int firstIdAtLeast(List<ARoom> byId, String roomId) {
+        int low = 0;
+        int high = byId.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (byId.get(mid).getRoomId().compareTo(roomId) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First index whose price is >= price, or > price when strictlyAbove.
+    private static int firstPriceAbove(List<ARoom> byPrice, double price, boolean strictlyAbove) {
+        int low = 0;
+        int high = byPrice.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            double midPrice = byPrice.get(mid).getPricePerNight();
+            if (midPrice < price || (strictlyAbove && midPrice == price)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static final class RoomViews {
+        final List<ARoom> inOrder;
+        final List<ARoom> byId;
+        final List<ARoom> byPrice;
+
+        RoomViews(List<ARoom> roomsInOrder) {
+            ARoom[] snapshot = roomsInOrder.toArray(new ARoom[0]);
+            ARoom[] sortedById = snapshot.clone();
+            Arrays.sort(sortedById);
+            ARoom[] sortedByPrice = sortedById.clone();
+            // Stable sort over the ID order, so equal prices stay ordered by ID
+            Arrays.sort(sortedByPrice, Comparator.comparingDouble(ARoom::getPricePerNight));
+            this.inOrder = Collections.unmodifiableList(Arrays.asList(snapshot));
+            this.byId = Collections.unmodifiableList(Arrays.asList(sortedById));
+            this.byPrice = Collections.unmodifiableList(Arrays.asList(sortedByPrice));
+        }
+    }
+
+    // Takes a room in or out of service; use this rather than ARoom.setInService so the
+    // occupancy calendar's in-service mask stays in step.
+    public void setRoomInService(String roomId, boolean inService) {
+        ARoom room = findRoom(roomId);
+        if (room == null) {
+            throw new IllegalArgumentException("Error: Room ID " + roomId + " not found.");
+        }
+        HotelJournal j = enterJournal();
+        RoomCalendar calendar = calendarOf(room);
+        calendar.lock();
+        try {
+            if (j != null) {
+                j.awaitDurable(j.logRoomInService(roomId, inService));
+            }
+            room.setInService(inService);
+            occupancy.setInService(calendar.getRoomIndex(), inService);
+            events.publish(new HotelEvent.RoomServiceChanged(room, inService));
+        } finally {
+            calendar.unlock();
+            exitJournal(j);
+        }
+    }
+
+    // All rooms matching the filter that are free for the whole stay, in insertion order.
+    // Computed in one pass over the occupancy calendar: the in-service rooms of the wanted
+    // type minus every room occupied on any night, then capacity/price on the survivors.
+    public List<ARoom> findAvailableRooms(LocalDate checkIn, LocalDate checkOut, RoomSearchFilter filter) {
+        if (checkIn == null || checkOut == null || !checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("Check-out date must be after check-in date.");
+        }
+        if (checkIn.toEpochDay() < archivedBeforeDay) {
+            return new ArrayList<>();
+        }
+        RoomSearchFilter criteria = filter == null ? RoomSearchFilter.ANY : filter;
+        long[] free = occupancy.findFree(criteria.getRoomType(), checkIn, checkOut);
+        List<ARoom> inventory = getAllRooms();
+        List<ARoom> available = new ArrayList<>();
+        for (int w = 0; w < free.length; w++) {
+            long word = free[w];
+            while (word != 0) {
+                int roomIndex = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (roomIndex < inventory.size() && criteria.matches(inventory.get(roomIndex))) {
+                    available.add(inventory.get(roomIndex));
+                }
+            }
+        }
+        return available;
+    }
+
+    // Number of in-service rooms of the type (null = any type) free on the night of the given date.
+    public int countAvailableRooms(RoomType roomType, LocalDate night) {
+        if (night == null) {
+            throw new IllegalArgumentException("Date must be provided.");
+        }
+        if (night.toEpochDay() < archivedBeforeDay) {
+            return 0;
+        }
+        return occupancy.countFree(roomType, night);
+    }
+
+    // Share (0..1) of the in-service rooms of the type (null = any type) booked for the night.
+    public double occupancyRate(RoomType roomType, LocalDate night) {
+        if (night == null) {
+            throw new IllegalArgumentException("Date must be provided.");
+        }
+        return occupancy.occupancyRate(roomType, night);
+    }
+
+    public boolean isRoomAvailable(ARoom room, LocalDate desiredCheckIn, LocalDate desiredCheckOut) {
+        metrics.availabilityChecks.increment();
+        if (room == null || desiredCheckIn == null || desiredCheckOut == null || !desiredCheckOut.isAfter(desiredCheckIn)) {
+            metrics.invalidRequests.increment();
+            eventLog.log(EventLog.Type.AVAILABILITY_INVALID, null, null);
+            return false;
+        }
+        RoomCalendar calendar = calendarOf(room);
+        if (calendar == null) {
+            metrics.invalidRequests.increment();
+            eventLog.log(EventLog.Type.ROOM_NOT_MANAGED, room.getRoomId(), null);
+            return false;
+        }
+        long start = metrics.startTimer();
+        calendar.lock();
+        try {
+            return isFreeLocked(room, calendar, desiredCheckIn, desiredCheckOut);
+        } finally {
+            calendar.unlock();
+            metrics.stopTimer(metrics.availabilityLatency, start);
+        }
+    }
+
+    // Caller must hold the calendar's lock.
+    private boolean isFreeLocked(ARoom room, RoomCalendar calendar, LocalDate desiredCheckIn, LocalDate desiredCheckOut) {
+        if (desiredCheckIn.toEpochDay() < archivedBeforeDay) {
+            // the stays that could conflict may already be archived, so these nights are closed
+            if (eventLog.isEnabled(EventLog.Type.AVAILABILITY_ARCHIVED)) {
+                eventLog.log(EventLog.Type.AVAILABILITY_ARCHIVED, room.getRoomId(), LocalDate.ofEpochDay(archivedBeforeDay));
+            }
+            return false;
+        }
+        if (!room.isInService()) {
+            metrics.roomsOutOfService.increment();
+            eventLog.log(EventLog.Type.ROOM_OUT_OF_SERVICE, room.getRoomId(), null);
+            return false;
+        }
+        Booking conflict = calendar.findConflict(desiredCheckIn, desiredCheckOut);
+        if (conflict != null) {
+            metrics.availabilityConflicts.increment();
+            eventLog.log(EventLog.Type.AVAILABILITY_CONFLICT, room.getRoomId(), conflict);
+            return false;
+        }
+        return true;
+    }
+
+    public Guest registerGuest(String name, String email) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Guest name cannot be empty.");
+        }
+        String key = emailKey(email);
+        HotelJournal j = enterJournal();
+        try {
+            if (key == null) {
+                return addGuest(name, email, j);
+            }
+            boolean[] created = new boolean[1];
+            Guest guest = this.guestsByEmail.computeIfAbsent(key, k -> {
+                created[0] = true;
+                return addGuest(name, email, j);
+            });
+            if (!created[0]) {
+                eventLog.log(EventLog.Type.GUEST_ALREADY_REGISTERED, guest, null);
+            }
+            return guest;
+        } finally {
+            exitJournal(j);
+        }
+    }
+
+    private Guest addGuest(String name, String email, HotelJournal j) {
+        Guest newGuest = new Guest(nextGuestHandle.getAndIncrement(), name, email);
+        if (j != null) {
+            j.awaitDurable(j.logGuestRegistered(newGuest));
+        }
+        this.guests.put(newGuest.getHandle(), newGuest);
+        events.publish(new HotelEvent.GuestRegistered(newGuest));
+        metrics.guestsRegistered.increment();
+        eventLog.log(EventLog.Type.GUEST_REGISTERED, newGuest, null);
+        return newGuest;
+    }
+
+    // Refuses stays the calendars cannot hold: nights outside OccupancyCalendar's fixed range,
+    // or more than MAX_STAY_NIGHTS of them. what names the stay in the message.
+    static void checkStay(String what, LocalDate checkInDate, LocalDate checkOutDate) {
+        if (!OccupancyCalendar.covers(checkInDate.toEpochDay(), checkOutDate.toEpochDay())) {
+            throw new IllegalArgumentException(what + " must fall between " + LocalDate.ofEpochDay(OccupancyCalendar.FIRST_DAY) + " and "
+                    + LocalDate.ofEpochDay(OccupancyCalendar.END_DAY) + ".");
+        }
+        if (checkOutDate.toEpochDay() - checkInDate.toEpochDay() > MAX_STAY_NIGHTS) {
+            throw new IllegalArgumentException(what + " cannot be longer than " + MAX_STAY_NIGHTS + " nights.");
+        }
+    }
+
+    public Booking createBooking(Guest guest, String roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        if (guest == null || roomId == null || checkInDate == null || checkOutDate == null) {
+            throw new IllegalArgumentException("All parameters for booking must be provided.");
+        }
+        if (!checkOutDate.isAfter(checkInDate)) {
+            throw new IllegalArgumentException("Check-out date must be after check-in date.");
+        }
+        checkStay("Stay", checkInDate, checkOutDate);
+        if (!isRegistered(guest)) {
+            throw new IllegalArgumentException("Booking failed: guest " + guest.getGuestId() + " is not registered in this hotel.");
+        }
+
+        ARoom roomToBook = findRoom(roomId);
+        if (roomToBook == null) {
+            throw new IllegalArgumentException("Booking failed: Room ID " + roomId + " not found.");
+        }
+
+        Booking newBooking;
+        long start = metrics.startTimer();
+        HotelJournal j = enterJournal();
+        RoomCalendar calendar = calendarOf(roomToBook);
+        calendar.lock();
+        try {
+            if (!isFreeLocked(roomToBook, calendar, checkInDate, checkOutDate)) {
+                metrics.bookingsRejected.increment();
+                throw new IllegalStateException("Booking failed: Room " + roomToBook.getRoomId() + " is not available for selected dates " + checkInDate + " to " + checkOutDate + ".");
+            }
+            newBooking = new Booking(nextBookingHandle.getAndIncrement(), guest, roomToBook, checkInDate, checkOutDate);
+            if (j != null) {
+                j.awaitDurable(j.logBookingCreated(newBooking));
+            }
+            // The room is free, so the stay is sold whatever the type counter says; the counter
+            // only limits type-level sales.
+            countUnits(roomToBook.getRoomType(), checkInDate, checkOutDate);
+            calendar.addStay(newBooking);
+            occupancy.markOccupied(calendar.getRoomIndex(), checkInDate, checkOutDate);
+            this.bookings.put(newBooking.getHandle(), newBooking);
+            events.publish(new HotelEvent.BookingCreated(newBooking));
+            this.bookingsVersion.incrementAndGet();
+        } finally {
+            calendar.unlock();
+            exitJournal(j);
+        }
+        metrics.bookingsCreated.increment();
+        metrics.stopTimer(metrics.bookingLatency, start);
+        eventLog.log(EventLog.Type.BOOKING_CREATED, newBooking, null);
+        return newBooking;
+    }
+
+    // Books every request or none of them. All involved rooms are locked in ascending room
+    // index order (so concurrent batches cannot deadlock), every stay is checked against the
+    // rooms' calendars and against the other stays of the batch, and only then are the
+    // bookings created, with one block of IDs and one journal record for the whole batch.
+    // Returns the bookings in request order.
+    public List<Booking> createBookings(List<BookingRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("At least one booking request must be provided.");
+        }
+        ARoom[] roomsToBook = new ARoom[requests.size()];
+        RoomCalendar[] calendars = new RoomCalendar[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            if (request == null || request.getGuest() == null || request.getRoomId() == null
+                    || request.getCheckInDate() == null || request.getCheckOutDate() == null) {
+                throw new IllegalArgumentException("Booking request " + (i + 1) + ": all parameters for booking must be provided.");
+            }
+            if (!request.getCheckOutDate().isAfter(request.getCheckInDate())) {
+                throw new IllegalArgumentException("Booking request " + (i + 1) + ": check-out date must be after check-in date.");
+            }
+            checkStay("Booking request " + (i + 1), request.getCheckInDate(), request.getCheckOutDate());
+            if (!isRegistered(request.getGuest())) {
+                throw new IllegalArgumentException("Booking request " + (i + 1) + ": guest " + request.getGuest().getGuestId()
+                        + " is not registered in this hotel.");
+            }
+            roomsToBook[i] = findRoom(request.getRoomId());
+            if (roomsToBook[i] == null) {
+                throw new IllegalArgumentException("Booking failed: Room ID " + request.getRoomId() + " not found.");
+            }
+            calendars[i] = calendarOf(roomsToBook[i]);
+        }
+        RoomCalendar[] lockOrder = calendars.clone();
+        Arrays.sort(lockOrder, Comparator.comparingInt(RoomCalendar::getRoomIndex));
+
+        List<Booking> created = new ArrayList<>(requests.size());
+        long start = metrics.startTimer();
+        HotelJournal j = enterJournal();
+        List<RoomCalendar> locked = new ArrayList<>(lockOrder.length);
+        Map<RoomCalendar, TreeMap<LocalDate, BookingRequest>> batchStaysByRoom = new IdentityHashMap<>();
+        try {
+            for (int i = 0; i < lockOrder.length; i++) {
+                if (i == 0 || lockOrder[i] != lockOrder[i - 1]) {
+                    lockOrder[i].lock();
+                    locked.add(lockOrder[i]);
+                }
+            }
+            for (int i = 0; i < requests.size(); i++) {
+                BookingRequest request = requests.get(i);
+                if (!isFreeLocked(roomsToBook[i], calendars[i], request.getCheckInDate(), request.getCheckOutDate())) {
+                    metrics.bookingsRejected.increment();
+                    throw new IllegalStateException("Booking failed: Room " + request.getRoomId() + " is not available for selected dates "
+                            + request.getCheckInDate() + " to " + request.getCheckOutDate() + ". No bookings of the batch were made.");
+                }
+                // stays of this batch for the room so far, checked the same way as the calendar
+                TreeMap<LocalDate, BookingRequest> batchStays = batchStaysByRoom.computeIfAbsent(calendars[i], c -> new TreeMap<>());
+                Map.Entry<LocalDate, BookingRequest> before = batchStays.lowerEntry(request.getCheckOutDate());
+                Map.Entry<LocalDate, BookingRequest> after = batchStays.ceilingEntry(request.getCheckInDate());
+                BookingRequest other = before != null && before.getValue().getCheckOutDate().isAfter(request.getCheckInDate()) ? before.getValue()
+                        : after != null && after.getKey().isBefore(request.getCheckOutDate()) ? after.getValue() : null;
+                if (other != null) {
+                    throw new IllegalArgumentException("Booking failed: requests for room " + request.getRoomId()
+                            + " overlap each other (" + other + " and " + request + ").");
+                }
+                batchStays.put(request.getCheckInDate(), request);
+            }
+            int firstHandle = nextBookingHandle.getAndAdd(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                BookingRequest request = requests.get(i);
+                created.add(new Booking(firstHandle + i, request.getGuest(), roomsToBook[i], request.getCheckInDate(), request.getCheckOutDate()));
+            }
+            if (j != null) {
+                j.awaitDurable(j.logBookingsCreated(created));
+            }
+            for (int i = 0; i < created.size(); i++) {
+                Booking booking = created.get(i);
+                countUnits(roomsToBook[i].getRoomType(), booking.getCheckInDate(), booking.getCheckOutDate());
+                calendars[i].addStay(booking);
+                occupancy.markOccupied(calendars[i].getRoomIndex(), booking.getCheckInDate(), booking.getCheckOutDate());
+                this.bookings.put(booking.getHandle(), booking);
+                events.publish(new HotelEvent.BookingCreated(booking));
+            }
+            this.bookingsVersion.incrementAndGet();
+        } finally {
+            for (int i = locked.size() - 1; i >= 0; i--) {
+                locked.get(i).unlock();
+            }
+            exitJournal(j);
+        }
+        metrics.bookingsCreated.add(created.size());
+        metrics.stopTimer(metrics.bookingLatency, start);
+        for (Booking booking : created) {
+            eventLog.log(EventLog.Type.BOOKING_CREATED, booking, null);
+        }
+        return created;
+    }
+
+    // Read-only, in booking ID order; archived bookings are not included. The snapshot is
+    // reused until bookings are added or archived; cancellations only change a booking's
+    // status, which readers see live.
+    public List<Booking> getAllBookings() {
+        long version = this.bookingsVersion.get();
+        BookingsView view = this.bookingsView;
+        if (view == null || view.version != version) {
+            // Read the version before copying: a booking added mid-copy bumps it past ours,
+            // so the next call rebuilds instead of reusing a snapshot that may miss it
+            List<Booking> all = new ArrayList<>();
+            this.bookings.forEach(all::add);
+            view = new BookingsView(version, Collections.unmodifiableList(all));
+            this.bookingsView = view;
+        }
+        return view.bookings;
+    }
+
+    private static final class BookingsView {
+        final long version;
+        final List<Booking> bookings;
+
+        BookingsView(long version, List<Booking> bookings) {
+            this.version = version;
+            this.bookings = bookings;
+        }
+    }
+
+    public void cancelBooking(String bookingId) {
+        Booking bookingToCancel = findBooking(bookingId);
+        if (bookingToCancel == null) {
+            throw new IllegalArgumentException("Error: Booking ID " + bookingId + " not found for cancellation.");
+        }
+
+        long start = metrics.startTimer();
+        HotelJournal j = enterJournal();
+        RoomCalendar calendar = calendarOf(bookingToCancel.getRoom());
+        calendar.lock();
+        try {
+            if (bookingToCancel.getStatus() == BookingStatus.CANCELLED) {
+                eventLog.log(EventLog.Type.BOOKING_ALREADY_CANCELLED, bookingId, null);
+                return;
+            }
+            if (this.bookings.get(bookingToCancel.getHandle()) != bookingToCancel) {
+                throw new IllegalStateException("Booking " + bookingId + " has ended and was archived; it can no longer be cancelled.");
+            }
+            if (j != null) {
+                j.awaitDurable(j.logBookingCancelled(bookingId));
+            }
+            bookingToCancel.setBookingStatus(BookingStatus.CANCELLED);
+            calendar.removeStay(bookingToCancel);
+            occupancy.markFree(calendar.getRoomIndex(), bookingToCancel.getCheckInDate(), bookingToCancel.getCheckOutDate());
+            releaseUnits(bookingToCancel.getRoom().getRoomType(), bookingToCancel.getCheckInDate(), bookingToCancel.getCheckOutDate());
+            events.publish(new HotelEvent.BookingCancelled(bookingToCancel));
+        } finally {
+            calendar.unlock();
+            exitJournal(j);
+        }
+        metrics.bookingsCancelled.increment();
+        metrics.stopTimer(metrics.cancellationLatency, start);
+        eventLog.log(EventLog.Type.BOOKING_CANCELLED, bookingId, null);
+    }
+
+    // Moves cancelled bookings, and stays that checked out on or before the given day, from
+    // the live tables into the archive, and closes the nights before that day for booking
+    // (their stays are no longer in the calendars to check against). Each booking is moved
+    // under its room's lock, so it is in the live tables or in the archive at every moment.
+    // Returns the number of bookings archived.
+    public int archiveBookings(LocalDate endedBy) {
+        if (endedBy == null) {
+            throw new IllegalArgumentException("Date must be provided.");
+        }
+        MappedBookingStore a = this.archive;
+        if (a == null) {
+            throw new IllegalStateException("No booking archive attached to this hotel.");
+        }
+        synchronized (archiveLock) {
+            long horizon = Math.max(archivedBeforeDay, endedBy.toEpochDay());
+            // close the nights first, so no booking for them can slip in behind the moves
+            a.setMarkDay(horizon);
+            this.archivedBeforeDay = horizon;
+
+            List<Booking> candidates = new ArrayList<>();
+            this.bookings.forEach(booking -> {
+                if (booking.getStatus() == BookingStatus.CANCELLED || booking.getCheckOutDate().toEpochDay() <= horizon) {
+                    candidates.add(booking);
+                }
+            });
+            int archived = 0;
+            try {
+                for (Booking booking : candidates) {
+                    RoomCalendar calendar = calendarOf(booking.getRoom());
+                    calendar.lock();
+                    try {
+                        if (this.bookings.get(booking.getHandle()) != booking) {
+                            continue;
+                        }
+                        a.append(booking);
+                        if (booking.getStatus() == BookingStatus.CONFIRMED) {
+                            calendar.removeStay(booking);
+                        }
+                        this.bookings.remove(booking.getHandle());
+                        archived++;
+                    } finally {
+                        calendar.unlock();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Archiving bookings failed: " + e.getMessage(), e);
+            } finally {
+                a.force();
+                this.bookingsVersion.incrementAndGet();
+            }
+            // Type bookings that turned into a booking, were cancelled or ended without a
+            // room are settled; nothing refers to them any more
+            List<RoomTypeBooking> settled = new ArrayList<>();
+            this.typeBookings.forEach(typeBooking -> {
+                if (typeBooking.getStatus() == BookingStatus.CANCELLED || typeBooking.getAssignedBooking() != null
+                        || typeBooking.getCheckOutDate().toEpochDay() <= horizon) {
+                    settled.add(typeBooking);
+                }
+            });
+            for (RoomTypeBooking typeBooking : settled) {
+                this.typeBookings.remove(typeBooking.getHandle());
+            }
+            occupancy.trimBefore(LocalDate.ofEpochDay(horizon));
+            eventLog.log(EventLog.Type.BOOKINGS_ARCHIVED, archived, LocalDate.ofEpochDay(horizon));
+            return archived;
+        }
+    }
+
+    // -------- Type-level inventory --------
+    // Every confirmed stay and every unassigned type booking holds one unit of its room
+    // type per night. Only type bookings are limited by the counters: a concrete room that
+    // its calendar shows free is always sold and just counted, so selling it may leave a type
+    // booking without a room, as may overbooking or taking rooms out of service (their
+    // stays keep counting).
+
+    private static final long MAX_FIT_GAP = 365; // nights; longer free runs all count as equally loose
+
+    // Extra rooms of the type that may be sold per night beyond those in service, against
+    // expected cancellations and no-shows. Configuration, not journaled: set it again after
+    // a restart.
+    public void setOverbookingAllowance(RoomType roomType, int rooms) {
+        if (roomType == null) {
+            throw new IllegalArgumentException("Room type must be provided.");
+        }
+        inventory.setAllowance(roomType, rooms);
+    }
+
+    public int getOverbookingAllowance(RoomType roomType) {
+        if (roomType == null) {
+            throw new IllegalArgumentException("Room type must be provided.");
+        }
+        return inventory.getAllowance(roomType);
+    }
+
+    // Rooms of the type still for sale for the night: in-service rooms plus the allowance,
+    // minus what is already sold. Negative when more was sold than there are rooms, e.g.
+    // rooms sold directly after the type sold out, or sold rooms taken out of service.
+    public int getTypeAvailability(RoomType roomType, LocalDate night) {
+        if (roomType == null || night == null) {
+            throw new IllegalArgumentException("Room type and date must be provided.");
+        }
+        if (night.toEpochDay() < archivedBeforeDay) {
+            return 0;
+        }
+        return occupancy.countInService(roomType) + inventory.getAllowance(roomType) - inventory.getSold(roomType, night.toEpochDay());
+    }
+
+    private boolean reserveUnits(RoomType roomType, LocalDate checkInDate, LocalDate checkOutDate) {
+        return inventory.tryReserve(roomType, checkInDate.toEpochDay(), checkOutDate.toEpochDay(), occupancy.countInService(roomType));
+    }
+
+    private void countUnits(RoomType roomType, LocalDate checkInDate, LocalDate checkOutDate) {
+        inventory.add(roomType, checkInDate.toEpochDay(), checkOutDate.toEpochDay(), 1);
+    }
+
+    private void releaseUnits(RoomType roomType, LocalDate checkInDate, LocalDate checkOutDate) {
+        inventory.add(roomType, checkInDate.toEpochDay(), checkOutDate.toEpochDay(), -1);
+    }
+
+    // Sells a stay in some room of the type, without choosing the room, if the type has a
+    // unit left on every night. The room is given later by assignRoom or assignRooms.
+    public RoomTypeBooking bookRoomType(Guest guest, RoomType roomType, LocalDate checkInDate, LocalDate checkOutDate) {
+        if (guest == null || roomType == null || checkInDate == null || checkOutDate == null) {
+            throw new IllegalArgumentException("All parameters for booking must be provided.");
+        }
+        if (!checkOutDate.isAfter(checkInDate)) {
+            throw new IllegalArgumentException("Check-out date must be after check-in date.");
+        }
+        checkStay("Stay", checkInDate, checkOutDate);
+        if (!isRegistered(guest)) {
+            throw new IllegalArgumentException("Booking failed: guest " + guest.getGuestId() + " is not registered in this hotel.");
+        }
+        if (checkInDate.toEpochDay() < archivedBeforeDay || !reserveUnits(roomType, checkInDate, checkOutDate)) {
+            metrics.bookingsRejected.increment();
+            throw new IllegalStateException("Booking failed: no " + roomType + " room is left for every night from " + checkInDate + " to " + checkOutDate + ".");
+        }
+        RoomTypeBooking typeBooking = new RoomTypeBooking(nextTypeBookingHandle.getAndIncrement(), guest, roomType, checkInDate, checkOutDate);
+        HotelJournal j = enterJournal();
+        try {
+            synchronized (typeBooking) {
+                if (j != null) {
+                    try {
+                        j.awaitDurable(j.logRoomTypeBooked(typeBooking));
+                    } catch (RuntimeException e) {
+                        // the units were taken by the check above; give them back
+                        releaseUnits(roomType, checkInDate, checkOutDate);
+                        throw e;
+                    }
+                }
+                this.typeBookings.put(typeBooking.getHandle(), typeBooking);
+                events.publish(new HotelEvent.RoomTypeBooked(typeBooking));
+            }
+        } finally {
+            exitJournal(j);
+        }
+        eventLog.log(EventLog.Type.TYPE_BOOKING_CREATED, typeBooking, null);
+        return typeBooking;
+    }
+
+    // Type bookings are dropped by archiveBookings once settled (cancelled, assigned or ended).
+    public RoomTypeBooking findTypeBooking(String typeBookingId) {
+        int handle = handleOf(typeBookingId, 'T');
+        return handle < 0 ? null : this.typeBookings.get(handle);
+    }
+
+    // Read-only, in type booking ID order.
+    public List<RoomTypeBooking> getAllTypeBookings() {
+        List<RoomTypeBooking> all = new ArrayList<>();
+        this.typeBookings.forEach(all::add);
+        return Collections.unmodifiableList(all);
+    }
+
+    // Gives the unit back. Once a room is assigned, cancel that booking instead.
+    public void cancelTypeBooking(String typeBookingId) {
+        RoomTypeBooking typeBooking = findTypeBooking(typeBookingId);
+        if (typeBooking == null) {
+            throw new IllegalArgumentException("Error: Type booking ID " + typeBookingId + " not found for cancellation.");
+        }
+        HotelJournal j = enterJournal();
+        try {
+            synchronized (typeBooking) {
+                if (typeBooking.getStatus() == BookingStatus.CANCELLED) {
+                    eventLog.log(EventLog.Type.BOOKING_ALREADY_CANCELLED, typeBookingId, null);
+                    return;
+                }
+                Booking assigned = typeBooking.getAssignedBooking();
+                if (assigned != null) {
+                    throw new IllegalStateException("Type booking " + typeBookingId + " already has room " + assigned.getRoom().getRoomId()
+                            + " as booking " + assigned.getBookingId() + "; cancel that booking instead.");
+                }
+                if (j != null) {
+                    j.awaitDurable(j.logRoomTypeCancelled(typeBookingId));
+                }
+                typeBooking.setStatus(BookingStatus.CANCELLED);
+                releaseUnits(typeBooking.getRoomType(), typeBooking.getCheckInDate(), typeBooking.getCheckOutDate());
+                events.publish(new HotelEvent.RoomTypeCancelled(typeBooking));
+            }
+        } finally {
+            exitJournal(j);
+        }
+        eventLog.log(EventLog.Type.TYPE_BOOKING_CANCELLED, typeBookingId, null);
+    }
+
+    // Gives an unassigned type booking a room and returns the resulting Booking. With a
+    // room ID, that room (of the booked type) must be free for the stay; with null, the
+    // free room of the type that fits the stay most tightly is taken. The type booking's
+    // unit carries over to the booking, so the counters do not change.
+    public Booking assignRoom(String typeBookingId, String roomId) {
+        RoomTypeBooking typeBooking = findTypeBooking(typeBookingId);
+        if (typeBooking == null) {
+            throw new IllegalArgumentException("Error: Type booking ID " + typeBookingId + " not found.");
+        }
+        List<ARoom> candidates;
+        if (roomId != null) {
+            ARoom room = findRoom(roomId);
+            if (room == null) {
+                throw new IllegalArgumentException("Error: Room ID " + roomId + " not found.");
+            }
+            if (room.getRoomType() != typeBooking.getRoomType()) {
+                throw new IllegalArgumentException("Room " + roomId + " is a " + room.getRoomType() + " room, but type booking "
+                        + typeBookingId + " is for a " + typeBooking.getRoomType() + " room.");
+            }
+            candidates = Collections.singletonList(room);
+        } else {
+            candidates = roomsByFit(typeBooking);
+        }
+
+        Booking newBooking = null;
+        long start = metrics.startTimer();
+        HotelJournal j = enterJournal();
+        try {
+            synchronized (typeBooking) {
+                if (typeBooking.getStatus() == BookingStatus.CANCELLED) {
+                    throw new IllegalStateException("Type booking " + typeBookingId + " is cancelled.");
+                }
+                if (typeBooking.getAssignedBooking() != null) {
+                    throw new IllegalStateException("Type booking " + typeBookingId + " already has room " + typeBooking.getAssignedBooking().getRoom().getRoomId() + ".");
+                }
+                LocalDate checkInDate = typeBooking.getCheckInDate();
+                LocalDate checkOutDate = typeBooking.getCheckOutDate();
+                for (ARoom room : candidates) {
+                    RoomCalendar calendar = calendarOf(room);
+                    calendar.lock();
+                    try {
+                        if (!isFreeLocked(room, calendar, checkInDate, checkOutDate)) {
+                            continue; // taken since it was ranked
+                        }
+                        Booking booking = new Booking(nextBookingHandle.getAndIncrement(), typeBooking.getGuest(), room, checkInDate, checkOutDate);
+                        if (j != null) {
+                            j.awaitDurable(j.logRoomTypeAssigned(typeBooking, booking));
+                        }
+                        calendar.addStay(booking);
+                        occupancy.markOccupied(calendar.getRoomIndex(), checkInDate, checkOutDate);
+                        this.bookings.put(booking.getHandle(), booking);
+                        typeBooking.assign(booking);
+                        events.publish(new HotelEvent.BookingCreated(booking));
+                        events.publish(new HotelEvent.RoomTypeAssigned(typeBooking, booking));
+                        this.bookingsVersion.incrementAndGet();
+                        newBooking = booking;
+                        break;
+                    } finally {
+                        calendar.unlock();
+                    }
+                }
+                if (newBooking == null) {
+                    metrics.bookingsRejected.increment();
+                    throw new IllegalStateException(roomId != null
+                            ? "Booking failed: Room " + roomId + " is not available for selected dates " + checkInDate + " to " + checkOutDate + "."
+                            : "No " + typeBooking.getRoomType() + " room is free for the whole stay of type booking " + typeBookingId
+                              + " (the type is overbooked); move or upgrade the guest.");
+                }
+            }
+        } finally {
+            exitJournal(j);
+        }
+        metrics.bookingsCreated.increment();
+        metrics.stopTimer(metrics.bookingLatency, start);
+        eventLog.log(EventLog.Type.BOOKING_CREATED, newBooking, null);
+        return newBooking;
+    }
+
+    // Batch room assignment, e.g. the night before arrival: every unassigned type booking
+    // checking in on or before the date gets a room, earliest check-in first and longer
+    // stays first within a day, each in its tightest-fitting free room, which keeps the
+    // free nights in long sellable runs. Bookings that find no free room (the type is
+    // overbooked) stay unassigned for the front desk. Returns the bookings created.
+    public List<Booking> assignRooms(LocalDate checkInBy) {
+        if (checkInBy == null) {
+            throw new IllegalArgumentException("Date must be provided.");
+        }
+        List<RoomTypeBooking> pending = new ArrayList<>();
+        this.typeBookings.forEach(typeBooking -> {
+            if (typeBooking.getStatus() == BookingStatus.CONFIRMED && typeBooking.getAssignedBooking() == null
+                    && !typeBooking.getCheckInDate().isAfter(checkInBy)) {
+                pending.add(typeBooking);
+            }
+        });
+        pending.sort(Comparator.comparing(RoomTypeBooking::getCheckInDate)
+                .thenComparing(RoomTypeBooking::getCheckOutDate, Comparator.reverseOrder()));
+        List<Booking> assigned = new ArrayList<>();
+        for (RoomTypeBooking typeBooking : pending) {
+            try {
+                assigned.add(assignRoom(typeBooking.getTypeBookingId(), null));
+            } catch (IllegalStateException e) {
+                // cancelled or assigned meanwhile, or no room left
+            }
+        }
+        eventLog.log(EventLog.Type.ROOMS_ASSIGNED, assigned.size(), pending.size() - assigned.size());
+        return assigned;
+    }
+
+    // Free rooms of the booked type, fewest free nights left around the stay first.
+    private List<ARoom> roomsByFit(RoomTypeBooking typeBooking) {
+        LocalDate checkInDate = typeBooking.getCheckInDate();
+        LocalDate checkOutDate = typeBooking.getCheckOutDate();
+        List<ARoom> free = findAvailableRooms(checkInDate, checkOutDate, new RoomSearchFilter(typeBooking.getRoomType(), 0, Double.MAX_VALUE));
+        long[] gaps = new long[free.size()];
+        Integer[] order = new Integer[free.size()];
+        for (int i = 0; i < free.size(); i++) {
+            RoomCalendar calendar = calendarOf(free.get(i));
+            calendar.lock();
+            try {
+                gaps[i] = calendar.gapAround(checkInDate, checkOutDate, MAX_FIT_GAP);
+            } finally {
+                calendar.unlock();
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> gaps[i]));
+        List<ARoom> ranked = new ArrayList<>(free.size());
+        for (Integer i : order) {
+            ranked.add(free.get(i));
+        }
+        return ranked;
+    }
+
+    // -------- Bulk loading (used by HotelBulkIO) --------
+
+    private static final int IMPORT_JOURNAL_BATCH = 8192; // bookings per journal record
+
+    // Adds many rooms, guests and bookings at once. Everything is checked before anything
+    // is added: room IDs and booking numbers must be new, every booking's guest and room
+    // must be part of the load or already in this hotel, and confirmed stays may not overlap
+    // each other or the rooms' current stays. The calendars, occupancy bitmap, booking
+    // snapshot and journal are then updated once for the whole load instead of per record.
+    // With an archive attached, cancelled bookings and stays that end by the archive horizon
+    // go straight into it. Guests whose email is already registered keep their own ID but
+    // are not found by findGuestByEmail (as with recovery).
+    // Meant for loading a property or its history, not while its rooms are being booked: if
+    // a booking for a loaded room is made between the check and the load, the load stops
+    // with IllegalStateException and nothing is loaded.
+    void bulkLoad(List<ARoom> newRooms, List<Guest> newGuests, List<Booking> newBookings) {
+        Set<String> roomIds = new HashSet<>();
+        Set<ARoom> loadedRooms = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ARoom room : newRooms) {
+            if (room.getHandle() >= 0 || findRoom(room.getRoomId()) != null || !roomIds.add(room.getRoomId())) {
+                throw new IllegalArgumentException("Room " + room.getRoomId() + " already exists.");
+            }
+            loadedRooms.add(room);
+        }
+        Set<Guest> loadedGuests = Collections.newSetFromMap(new IdentityHashMap<>());
+        BitSet guestHandles = new BitSet();
+        for (Guest guest : newGuests) {
+            if (guest.getHandle() < 0 || guestHandles.get(guest.getHandle()) || this.guests.get(guest.getHandle()) != null) {
+                throw new IllegalArgumentException("Guest " + guest.getGuestId() + " already exists.");
+            }
+            guestHandles.set(guest.getHandle());
+            loadedGuests.add(guest);
+        }
+        MappedBookingStore a = this.archive;
+        long horizon = this.archivedBeforeDay;
+        BitSet bookingHandles = new BitSet();
+        Map<ARoom, List<Booking>> staysByRoom = new IdentityHashMap<>(); // confirmed stays that go live
+        int liveStays = 0;
+        for (Booking booking : newBookings) {
+            int handle = booking.getHandle();
+            if (handle < 0 || bookingHandles.get(handle) || this.bookings.get(handle) != null || (a != null && a.find(handle) != null)) {
+                throw new IllegalArgumentException("Booking " + booking.getBookingId() + " already exists.");
+            }
+            bookingHandles.set(handle);
+            Guest guest = booking.getGuest();
+            if (guest == null || (!loadedGuests.contains(guest) && !isRegistered(guest))) {
+                throw new IllegalArgumentException("Booking " + booking.getBookingId() + " refers to an unknown guest.");
+            }
+            ARoom room = booking.getRoom();
+            if (room == null || (!loadedRooms.contains(room) && calendarOf(room) == null)) {
+                throw new IllegalArgumentException("Booking " + booking.getBookingId() + " refers to an unknown room.");
+            }
+            if (booking.getCheckInDate() == null || booking.getCheckOutDate() == null || !booking.getCheckOutDate().isAfter(booking.getCheckInDate())) {
+                throw new IllegalArgumentException("Booking " + booking.getBookingId() + ": check-out date must be after check-in date.");
+            }
+            checkStay("Booking " + booking.getBookingId(), booking.getCheckInDate(), booking.getCheckOutDate());
+            if (!toArchive(booking, a, horizon) && booking.getStatus() == BookingStatus.CONFIRMED) {
+                staysByRoom.computeIfAbsent(room, r -> new ArrayList<>()).add(booking);
+                liveStays++;
+            }
+        }
+        for (Map.Entry<ARoom, List<Booking>> entry : staysByRoom.entrySet()) {
+            List<Booking> stays = entry.getValue();
+            stays.sort(Comparator.comparing(Booking::getCheckInDate));
+            for (int i = 1; i < stays.size(); i++) {
+                if (stays.get(i).getCheckInDate().isBefore(stays.get(i - 1).getCheckOutDate())) {
+                    throw new IllegalArgumentException("Bookings " + stays.get(i - 1).getBookingId() + " and " + stays.get(i).getBookingId()
+                            + " overlap in room " + entry.getKey().getRoomId() + ".");
+                }
+            }
+            if (!loadedRooms.contains(entry.getKey())) {
+                Booking conflict = findConflict(calendarOf(entry.getKey()), stays);
+                if (conflict != null) {
+                    throw new IllegalArgumentException("Booking " + conflict.getBookingId() + " overlaps a stay already booked in room "
+                            + entry.getKey().getRoomId() + ".");
+                }
+            }
+        }
+
+        // Claim the loaded guest and booking numbers before anything goes in. A number below
+        // a counter may be held by a registerGuest or createBooking still in progress, so such
+        // a load is refused; the numbers it claimed are left unused.
+        if (!newGuests.isEmpty()) {
+            int next = nextGuestHandle.getAndAccumulate(guestHandles.length(), Math::max);
+            if (next > guestHandles.nextSetBit(0)) {
+                throw new IllegalArgumentException("Guest G" + guestHandles.nextSetBit(0) + " may already exist; loaded guest IDs must start at G" + next + " or above.");
+            }
+        }
+        if (!newBookings.isEmpty()) {
+            int next = nextBookingHandle.getAndAccumulate(bookingHandles.length(), Math::max);
+            if (next > bookingHandles.nextSetBit(0)) {
+                throw new IllegalArgumentException("Booking B" + bookingHandles.nextSetBit(0) + " may already exist; loaded booking IDs must start at B" + next + " or above.");
+            }
+        }
+
+        List<ARoom> bookedRooms = new ArrayList<>();
+        for (ARoom room : staysByRoom.keySet()) {
+            if (!loadedRooms.contains(room)) {
+                bookedRooms.add(room);
+            }
+        }
+        bookedRooms.sort(Comparator.comparingInt(ARoom::getHandle));
+        HotelJournal j = enterJournal();
+        List<RoomCalendar> locked = new ArrayList<>(bookedRooms.size() + newRooms.size());
+        try {
+            // The hotel's rooms are locked in room index order, as createBookings does, and
+            // checked again; the loaded rooms are locked as they go in. Nothing can be booked
+            // in any of them until the whole load is in.
+            for (ARoom room : bookedRooms) {
+                RoomCalendar calendar = calendarOf(room);
+                calendar.lock();
+                locked.add(calendar);
+                Booking conflict = findConflict(calendar, staysByRoom.get(room));
+                if (conflict != null) {
+                    throw new IllegalStateException("Bulk load stopped: room " + room.getRoomId() + " was booked while loading "
+                            + conflict.getBookingId() + ". Nothing was loaded.");
+                }
+            }
+            synchronized (roomsLock) {
+                for (ARoom room : newRooms) {
+                    if (findRoom(room.getRoomId()) != null) {
+                        throw new IllegalArgumentException("Room " + room.getRoomId() + " already exists.");
+                    }
+                }
+                if (j != null) {
+                    j.awaitDurable(journalLoad(j, newRooms, newGuests, newBookings, a, horizon));
+                }
+                for (ARoom room : newRooms) {
+                    insertRoom(room, true);
+                    locked.add(calendarOf(room));
+                    events.publish(new HotelEvent.RoomAdded(room));
+                }
+            }
+            for (Guest guest : newGuests) {
+                this.guests.put(guest.getHandle(), guest);
+                String key = emailKey(guest.getEmail());
+                if (key != null) {
+                    this.guestsByEmail.putIfAbsent(key, guest);
+                }
+                events.publish(new HotelEvent.GuestRegistered(guest));
+            }
+
+            int[] roomIndexes = new int[liveStays];
+            long[] checkInDays = new long[liveStays];
+            long[] checkOutDays = new long[liveStays];
+            int stayCount = 0;
+            for (Map.Entry<ARoom, List<Booking>> entry : staysByRoom.entrySet()) {
+                RoomCalendar calendar = calendarOf(entry.getKey());
+                for (Booking booking : entry.getValue()) {
+                    calendar.addStay(booking);
+                    roomIndexes[stayCount] = calendar.getRoomIndex();
+                    checkInDays[stayCount] = booking.getCheckInDate().toEpochDay();
+                    checkOutDays[stayCount] = booking.getCheckOutDate().toEpochDay();
+                    inventory.add(booking.getRoom().getRoomType(), checkInDays[stayCount], checkOutDays[stayCount], 1);
+                    stayCount++;
+                }
+            }
+            occupancy.markAllOccupied(stayCount, roomIndexes, checkInDays, checkOutDays);
+
+            try {
+                for (Booking booking : newBookings) {
+                    if (toArchive(booking, a, horizon)) {
+                        a.append(booking);
+                    } else {
+                        this.bookings.put(booking.getHandle(), booking);
+                    }
+                    events.publish(new HotelEvent.BookingCreated(booking));
+                    if (booking.getStatus() == BookingStatus.CANCELLED) {
+                        events.publish(new HotelEvent.BookingCancelled(booking));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Archiving imported bookings failed: " + e.getMessage(), e);
+            } finally {
+                if (a != null) {
+                    a.force();
+                }
+                this.bookingsVersion.incrementAndGet();
+            }
+        } finally {
+            for (int i = locked.size() - 1; i >= 0; i--) {
+                locked.get(i).unlock();
+            }
+            exitJournal(j);
+        }
+        metrics.roomsAdded.add(newRooms.size());
+        metrics.guestsRegistered.add(newGuests.size());
+    }
+
+    // Appends the records of a bulk load and returns the sequence number of the last one.
+    // Bookings that go to the archive are not journaled.
+    private static long journalLoad(HotelJournal j, List<ARoom> newRooms, List<Guest> newGuests, List<Booking> newBookings,
+                                    MappedBookingStore a, long horizon) {
+        long journalSeq = 0;
+        for (ARoom room : newRooms) {
+            journalSeq = j.logRoomAdded(room);
+        }
+        for (Guest guest : newGuests) {
+            journalSeq = j.logGuestRegistered(guest);
+        }
+        List<Booking> journalBatch = new ArrayList<>(Math.min(IMPORT_JOURNAL_BATCH, newBookings.size()));
+        for (Booking booking : newBookings) {
+            if (!toArchive(booking, a, horizon)) {
+                journalBatch.add(booking);
+                if (journalBatch.size() == IMPORT_JOURNAL_BATCH) {
+                    journalSeq = j.logBookingsImported(journalBatch);
+                    journalBatch.clear();
+                }
+            }
+        }
+        if (!journalBatch.isEmpty()) {
+            journalSeq = j.logBookingsImported(journalBatch);
+        }
+        return journalSeq;
+    }
+
+    private static boolean toArchive(Booking booking, MappedBookingStore archive, long horizon) {
+        return archive != null && (booking.getStatus() == BookingStatus.CANCELLED || booking.getCheckOutDate().toEpochDay() <= horizon);
+    }
+
+    // First of the stays that conflicts with the calendar, or null. Locks the calendar itself
+    // unless the caller already holds it (the lock is reentrant).
+    private static Booking findConflict(RoomCalendar calendar, List<Booking> stays) {
+        calendar.lock();
+        try {
+            for (Booking booking : stays) {
+                if (calendar.findConflict(booking.getCheckInDate(), booking.getCheckOutDate()) != null) {
+                    return booking;
+                }
+            }
+            return null;
+        } finally {
+            calendar.unlock();
+        }
+    }
+
+    // Visits the archived bookings in archive order (not booking ID order); each is a view
+    // read from the archive file.
+    public void forEachArchivedBooking(Consumer<? super Booking> action) {
+        MappedBookingStore a = this.archive;
+        if (a != null) {
+            for (long row = 0, rows = a.size(); row < rows; row++) {
+                action.accept(a.get(row));
+            }
+        }
+    }
+
+    // The journal a mutation appends to, or null; entered for the mutation, see HotelJournal.
+    private HotelJournal enterJournal() {
+        HotelJournal j = this.journal;
+        if (j != null) {
+            j.enter();
+        }
+        return j;
+    }
+
+    private static void exitJournal(HotelJournal j) {
+        if (j != null) {
+            j.exit();
+        }
+    }
+
+    // -------- Recovery (used by HotelStore) --------
+    // These rebuild state from a snapshot or journal without logging or printing. They are
+    // idempotent, because a snapshot may already contain records that are replayed after it.
+
+    void restoreRoom(ARoom room) {
+        synchronized (roomsLock) {
+            insertRoom(room);
+        }
+    }
+
+    void restoreRoomInService(String roomId, boolean inService) {
+        ARoom room = findRoom(roomId);
+        if (room == null) {
+            return;
+        }
+        RoomCalendar calendar = calendarOf(room);
+        calendar.lock();
+        try {
+            room.setInService(inService);
+            occupancy.setInService(calendar.getRoomIndex(), inService);
+        } finally {
+            calendar.unlock();
+        }
+    }
+
+    void restoreGuest(String guestId, String name, String email) {
+        int handle = recoveredHandle(guestId, 'G');
+        Guest guest = new Guest(handle, name, email);
+        if (this.guests.putIfAbsent(handle, guest) != null) {
+            return;
+        }
+        String key = emailKey(email);
+        if (key != null) {
+            this.guestsByEmail.putIfAbsent(key, guest);
+        }
+        nextGuestHandle.accumulateAndGet(handle + 1, Math::max);
+    }
+
+    void restoreBooking(String bookingId, String guestId, String roomId, LocalDate checkInDate, LocalDate checkOutDate, BookingStatus status) {
+        restoreBookings(Collections.singletonList(recoveredBooking(bookingId, guestId, roomId, checkInDate, checkOutDate, status)));
+    }
+
+    // A booking record of a snapshot or journal as an object, for restoreBookings.
+    Booking recoveredBooking(String bookingId, String guestId, String roomId, LocalDate checkInDate, LocalDate checkOutDate, BookingStatus status) {
+        Guest guest = findGuest(guestId);
+        ARoom room = findRoom(roomId);
+        if (guest == null || room == null) {
+            throw new IllegalStateException("Recovery failed: booking " + bookingId + " references unknown guest or room.");
+        }
+        Booking booking = new Booking(recoveredHandle(bookingId, 'B'), guest, room, checkInDate, checkOutDate);
+        booking.setBookingStatus(status);
+        return booking;
+    }
+
+    // restoreBooking for many bookings at once, e.g. a whole snapshot: each room calendar is
+    // locked per booking as usual, but the occupancy bitmap is marked for the whole batch
+    // under one lock and one horizon change. Bookings already known are skipped.
+    void restoreBookings(List<Booking> batch) {
+        MappedBookingStore a = this.archive;
+        int[] roomIndexes = new int[batch.size()];
+        long[] checkInDays = new long[batch.size()];
+        long[] checkOutDays = new long[batch.size()];
+        int stayCount = 0;
+        int maxHandle = -1;
+        for (Booking booking : batch) {
+            int handle = booking.getHandle();
+            if (this.bookings.get(handle) != null || (a != null && a.find(handle) != null)) {
+                continue;
+            }
+            RoomCalendar calendar = calendarOf(booking.getRoom());
+            calendar.lock();
+            try {
+                if (booking.getStatus() == BookingStatus.CONFIRMED) {
+                    calendar.addStay(booking);
+                    long checkIn = booking.getCheckInDate().toEpochDay();
+                    long checkOut = booking.getCheckOutDate().toEpochDay();
+                    inventory.add(booking.getRoom().getRoomType(), checkIn, checkOut, 1);
+                    roomIndexes[stayCount] = calendar.getRoomIndex();
+                    checkInDays[stayCount] = checkIn;
+                    checkOutDays[stayCount] = checkOut;
+                    stayCount++;
+                }
+                this.bookings.put(handle, booking);
+            } finally {
+                calendar.unlock();
+            }
+            maxHandle = Math.max(maxHandle, handle);
+        }
+        occupancy.markAllOccupied(stayCount, roomIndexes, checkInDays, checkOutDays);
+        this.bookingsVersion.incrementAndGet();
+        nextBookingHandle.accumulateAndGet(maxHandle + 1, Math::max);
+    }
+
+    void restoreCancellation(String bookingId) {
+        Booking booking = this.bookings.get(handleOf(bookingId, 'B'));
+        if (booking == null) {
+            return; // unknown, or archived (only cancelled or finished stays are)
+        }
+        RoomCalendar calendar = calendarOf(booking.getRoom());
+        calendar.lock();
+        try {
+            if (booking.getStatus() == BookingStatus.CONFIRMED) {
+                booking.setBookingStatus(BookingStatus.CANCELLED);
+                calendar.removeStay(booking);
+                occupancy.markFree(calendar.getRoomIndex(), booking.getCheckInDate(), booking.getCheckOutDate());
+                releaseUnits(booking.getRoom().getRoomType(), booking.getCheckInDate(), booking.getCheckOutDate());
+            }
+        } finally {
+            calendar.unlock();
+        }
+    }
+
+    // An assigned type booking whose booking is not restored yet is restored unassigned;
+    // the ROOM_TYPE_ASSIGNED record replayed after it completes the assignment.
+    void restoreTypeBooking(String typeBookingId, String guestId, RoomType roomType, LocalDate checkInDate, LocalDate checkOutDate,
+                            BookingStatus status, String assignedBookingId) {
+        int handle = recoveredHandle(typeBookingId, 'T');
+        if (this.typeBookings.get(handle) != null) {
+            return;
+        }
+        Guest guest = findGuest(guestId);
+        if (guest == null) {
+            throw new IllegalStateException("Recovery failed: type booking " + typeBookingId + " references unknown guest.");
+        }
+        RoomTypeBooking typeBooking = new RoomTypeBooking(handle, guest, roomType, checkInDate, checkOutDate);
+        typeBooking.setStatus(status);
+        Booking assigned = assignedBookingId == null ? null : findBooking(assignedBookingId);
+        if (assigned != null) {
+            typeBooking.assign(assigned);
+        } else if (status == BookingStatus.CONFIRMED) {
+            inventory.add(roomType, checkInDate.toEpochDay(), checkOutDate.toEpochDay(), 1);
+        }
+        this.typeBookings.put(handle, typeBooking);
+        nextTypeBookingHandle.accumulateAndGet(handle + 1, Math::max);
+    }
+
+    void restoreTypeAssignment(String typeBookingId, String bookingId, String roomId) {
+        RoomTypeBooking typeBooking = this.typeBookings.get(handleOf(typeBookingId, 'T'));
+        if (typeBooking == null) {
+            return; // settled and dropped before the snapshot, which holds its booking
+        }
+        restoreBooking(bookingId, typeBooking.getGuest().getGuestId(), roomId, typeBooking.getCheckInDate(), typeBooking.getCheckOutDate(), BookingStatus.CONFIRMED);
+        synchronized (typeBooking) {
+            if (typeBooking.getAssignedBooking() == null) {
+                typeBooking.assign(findBooking(bookingId));
+                releaseUnits(typeBooking.getRoomType(), typeBooking.getCheckInDate(), typeBooking.getCheckOutDate());
+            }
+        }
+    }
+
+    void restoreTypeCancellation(String typeBookingId) {
+        RoomTypeBooking typeBooking = this.typeBookings.get(handleOf(typeBookingId, 'T'));
+        if (typeBooking == null) {
+            return;
+        }
+        synchronized (typeBooking) {
+            if (typeBooking.getStatus() == BookingStatus.CONFIRMED && typeBooking.getAssignedBooking() == null) {
+                typeBooking.setStatus(BookingStatus.CANCELLED);
+                releaseUnits(typeBooking.getRoomType(), typeBooking.getCheckInDate(), typeBooking.getCheckOutDate());
+            }
+        }
+    }
+
+    private static int recoveredHandle(String id, char prefix) {
+        int handle = handleOf(id, prefix);
+        if (handle < 0) {
+            throw new IllegalStateException("Recovery failed: malformed ID " + id + ".");
+        }
+        return handle;
+    }
+
+    // "G12" -> 12 for prefix 'G', "B7" -> 7 for 'B', "T3" -> 3 for 'T'; -1 if the ID is not of that form.
+    // Parsed in place, so looking an ID up allocates nothing.
+    static int handleOf(String id, char prefix) {
+        if (id == null || id.length() < 2 || id.length() > 11 || id.charAt(0) != prefix) {
+            return -1;
+        }
+        if (id.charAt(1) == '0' && id.length() > 2) {
+            return -1; // IDs are issued without leading zeros, so "B01" is not B1
+        }
+        long handle = 0;
+        for (int i = 1; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            handle = handle * 10 + (c - '0');
+        }
+        return handle > Integer.MAX_VALUE ? -1 : (int) handle;
+    }
+}
@@ -0,0 +1,487 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// -------------- HOTEL ANALYTICS --------------
+// Occupancy, ADR (revenue per sold room night), RevPAR (revenue per available room night),
+// cancellation rates and length-of-stay distribution, kept as running aggregates:
+// - room nights sold and revenue per RoomType per night of a fixed window of days,
+// - the same per calendar month of the window,
+// - bookings created/cancelled per type and a length-of-stay histogram.
+// Every query reads a handful of counters, so dashboards can poll freely.
+//
+// The aggregates are built once from the hotel's live and archived bookings, the live ones
+// with a parallel stream (each fork-join task tallies its slice into private arrays, which
+// are then added together), and afterwards maintained from the hotel's event stream:
+// BookingCreated adds a stay, BookingCancelled takes it back out. Only the event thread
+// writes; readers see atomics.
+// Revenue is the room's base price per night, in cents. Occupancy and RevPAR divide by
+// the rooms of the type that are in service now, also for past nights.
+// If the event stream drops this subscriber (it fell too far behind) the aggregates are
+// rebuilt from scratch.
+class HotelAnalytics {
+    public static final int MAX_TRACKED_STAY = 30; // longer stays share the last histogram bucket
+
+    private static final int TYPES = RoomType.values().length;
+
+    private final Hotel hotel;
+    private final long originDay;
+    private final int days;
+    private final long originMonth; // months since year 0 of the first month in the window
+    private final int months;
+    private volatile Aggregates current;
+    private EventSubscriber subscriber; // the one feeding current; guarded by this
+
+    // Tracks the nights [from, from + days) per night and per month; bookings and nights
+    // outside the window still count towards the totals, cancellation rates and stay lengths.
+    public HotelAnalytics(Hotel hotel, LocalDate from, int days) {
+        if (hotel == null || from == null) {
+            throw new IllegalArgumentException("Hotel and start date must be provided.");
+        }
+        if (days <= 0) {
+            throw new IllegalArgumentException("Window must be at least one day.");
+        }
+        this.hotel = hotel;
+        this.originDay = from.toEpochDay();
+        this.days = days;
+        this.originMonth = monthNumber(from);
+        this.months = (int) (monthNumber(from.plusDays(days - 1)) - originMonth + 1);
+        rebuild();
+    }
+
+    // -------------- QUERIES --------------
+    // roomType null means all types together. Dates outside the window read as zero.
+
+    public long getRoomNightsSold(RoomType roomType, LocalDate night) {
+        int day = dayIndex(night);
+        return day < 0 ? 0 : sum(current.nightsSold, roomType, day);
+    }
+
+    public BigDecimal getRevenue(RoomType roomType, LocalDate night) {
+        int day = dayIndex(night);
+        return cents(day < 0 ? 0 : sum(current.revenueCents, roomType, day));
+    }
+
+    public double getOccupancyRate(RoomType roomType, LocalDate night) {
+        int rooms = getRoomsInService(roomType);
+        return rooms == 0 ? 0 : (double) getRoomNightsSold(roomType, night) / rooms;
+    }
+
+    // Occupancy of each night from the given date on, e.g. the next 90 days.
+    public double[] getOccupancySeries(RoomType roomType, LocalDate from, int nights) {
+        double[] series = new double[nights];
+        for (int i = 0; i < nights; i++) {
+            series[i] = getOccupancyRate(roomType, from.plusDays(i));
+        }
+        return series;
+    }
+
+    public BigDecimal getAverageDailyRate(RoomType roomType, LocalDate night) {
+        int day = dayIndex(night);
+        return day < 0 ? BigDecimal.ZERO.setScale(2) : ratio(sum(current.revenueCents, roomType, day), sum(current.nightsSold, roomType, day));
+    }
+
+    public BigDecimal getRevPar(RoomType roomType, LocalDate night) {
+        int day = dayIndex(night);
+        return day < 0 ? BigDecimal.ZERO.setScale(2) : ratio(sum(current.revenueCents, roomType, day), getRoomsInService(roomType));
+    }
+
+    public long getRoomNightsSold(RoomType roomType, YearMonth month) {
+        int index = monthIndex(month);
+        return index < 0 ? 0 : sum(current.monthNightsSold, roomType, index);
+    }
+
+    public BigDecimal getRevenue(RoomType roomType, YearMonth month) {
+        int index = monthIndex(month);
+        return cents(index < 0 ? 0 : sum(current.monthRevenueCents, roomType, index));
+    }
+
+    public BigDecimal getAverageDailyRate(RoomType roomType, YearMonth month) {
+        int index = monthIndex(month);
+        return index < 0 ? BigDecimal.ZERO.setScale(2) : ratio(sum(current.monthRevenueCents, roomType, index), sum(current.monthNightsSold, roomType, index));
+    }
+
+    public BigDecimal getRevPar(RoomType roomType, YearMonth month) {
+        int index = monthIndex(month);
+        long available = (long) getRoomsInService(roomType) * month.lengthOfMonth();
+        return index < 0 ? BigDecimal.ZERO.setScale(2) : ratio(sum(current.monthRevenueCents, roomType, index), available);
+    }
+
+    public long getBookingsCreated(RoomType roomType) { return sumTypes(current.created, roomType); }
+    public long getBookingsCancelled(RoomType roomType) { return sumTypes(current.cancelled, roomType); }
+
+    public double getCancellationRate(RoomType roomType) {
+        long created = getBookingsCreated(roomType);
+        return created == 0 ? 0 : (double) getBookingsCancelled(roomType) / created;
+    }
+
+    // Confirmed bookings by nights: index n counts stays of n nights, the last index those of
+    // MAX_TRACKED_STAY nights or more; index 0 is unused.
+    public long[] getLengthOfStayDistribution() {
+        AtomicLongArray histogram = current.stayLengths;
+        long[] copy = new long[histogram.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = histogram.get(i);
+        }
+        return copy;
+    }
+
+    public double getAverageLengthOfStay() {
+        Aggregates aggregates = current;
+        long stays = aggregates.confirmedStays.get(0);
+        return stays == 0 ? 0 : (double) aggregates.confirmedNights.get(0) / stays;
+    }
+
+    public int getRoomsInService(RoomType roomType) {
+        AtomicIntegerArray rooms = current.roomsInService;
+        if (roomType != null) {
+            return rooms.get(roomType.ordinal());
+        }
+        int total = 0;
+        for (int t = 0; t < TYPES; t++) {
+            total += rooms.get(t);
+        }
+        return total;
+    }
+
+    // -------------- BUILDING --------------
+
+    // Recomputes everything from the hotel's bookings and follows its events from then on,
+    // cancelling the subscription that fed the previous aggregates.
+    // The subscription is made first and only starts delivering once the build is done, so
+    // no change is missed; changes already in the build are recognised and skipped.
+    public synchronized void rebuild() {
+        if (subscriber != null) {
+            subscriber.cancel(); // its aggregates are replaced below
+        }
+        Aggregates fresh = new Aggregates(days, months);
+        EventSubscriber subscriber = new EventSubscriber(fresh);
+        this.subscriber = subscriber;
+        hotel.getEvents().subscribe(subscriber);
+
+        for (ARoom room : hotel.getAllRooms()) {
+            setInService(fresh, room, room.isInService());
+        }
+        // Live bookings are listed before the archive is read, so one archived in between is
+        // seen twice rather than missed; the archive's copy wins.
+        List<Booking> bookings = hotel.getAllBookings();
+        Partial archived = new Partial(days, months);
+        hotel.forEachArchivedBooking(archived::add);
+        Partial total = bookings.parallelStream().filter(booking -> !archived.counted.get(booking.getHandle()))
+                .collect(() -> new Partial(days, months), Partial::add, Partial::merge);
+        total.merge(archived);
+        total.copyInto(fresh);
+        this.current = fresh;
+        subscriber.start();
+    }
+
+    // Stops following the hotel's events; the aggregates no longer change.
+    public synchronized void close() {
+        if (subscriber != null) {
+            subscriber.cancel();
+            subscriber = null;
+        }
+    }
+
+    private final class EventSubscriber implements Flow.Subscriber<HotelEvent> {
+        private final Aggregates target;
+        private volatile Flow.Subscription subscription;
+        private boolean startRequested;
+        private boolean cancelled;
+
+        EventSubscriber(Aggregates target) {
+            this.target = target;
+        }
+
+        synchronized void start() {
+            startRequested = true;
+            if (subscription != null && !cancelled) {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public synchronized void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+            } else if (startRequested) {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(HotelEvent event) {
+            if (event instanceof HotelEvent.BookingCreated) {
+                Booking booking = ((HotelEvent.BookingCreated) event).getBooking();
+                if (!target.counted.get(booking.getHandle())) {
+                    target.counted.set(booking.getHandle());
+                    target.created.incrementAndGet(booking.getRoom().getRoomType().ordinal());
+                    applyStay(target, booking, 1);
+                }
+            } else if (event instanceof HotelEvent.BookingCancelled) {
+                Booking booking = ((HotelEvent.BookingCancelled) event).getBooking();
+                if (target.counted.get(booking.getHandle()) && !target.cancelledHandles.get(booking.getHandle())) {
+                    target.cancelledHandles.set(booking.getHandle());
+                    target.cancelled.incrementAndGet(booking.getRoom().getRoomType().ordinal());
+                    applyStay(target, booking, -1);
+                }
+            } else if (event instanceof HotelEvent.RoomAdded) {
+                ARoom room = ((HotelEvent.RoomAdded) event).getRoom();
+                setInService(target, room, room.isInService());
+            } else if (event instanceof HotelEvent.RoomServiceChanged) {
+                HotelEvent.RoomServiceChanged change = (HotelEvent.RoomServiceChanged) event;
+                setInService(target, change.getRoom(), change.isInService());
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            // dropped for falling behind: start over on a fresh subscription, unless a rebuild
+            // has already replaced this one
+            Thread thread = new Thread(() -> {
+                synchronized (HotelAnalytics.this) {
+                    if (subscriber == this) {
+                        rebuild();
+                    }
+                }
+            }, "hotel-analytics-rebuild");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    // Rooms are counted by handle, so a room already in the build is not counted again when
+    // its RoomAdded or RoomServiceChanged event arrives afterwards.
+    private static void setInService(Aggregates target, ARoom room, boolean inService) {
+        if (target.inServiceRooms.get(room.getHandle()) != inService) {
+            target.inServiceRooms.set(room.getHandle(), inService);
+            target.roomsInService.addAndGet(room.getRoomType().ordinal(), inService ? 1 : -1);
+        }
+    }
+
+    // Adds (sign 1) or removes (sign -1) a confirmed stay.
+    private void applyStay(Aggregates target, Booking booking, int sign) {
+        int type = booking.getRoom().getRoomType().ordinal();
+        long price = priceCents(booking.getRoom());
+        long checkIn = booking.getCheckInDate().toEpochDay();
+        long checkOut = booking.getCheckOutDate().toEpochDay();
+        for (long day = Math.max(checkIn, originDay); day < Math.min(checkOut, originDay + days); day++) {
+            int index = (int) (day - originDay);
+            target.nightsSold[type].addAndGet(index, sign);
+            target.revenueCents[type].addAndGet(index, sign * price);
+            int month = (int) (monthNumber(LocalDate.ofEpochDay(day)) - originMonth);
+            target.monthNightsSold[type].addAndGet(month, sign);
+            target.monthRevenueCents[type].addAndGet(month, sign * price);
+        }
+        int nights = (int) (checkOut - checkIn);
+        target.stayLengths.addAndGet(Math.min(nights, MAX_TRACKED_STAY), sign);
+        target.confirmedStays.addAndGet(0, sign);
+        target.confirmedNights.addAndGet(0, (long) sign * nights);
+    }
+
+    // -------------- PARTIAL AGGREGATES FOR THE PARALLEL BUILD --------------
+
+    private final class Partial {
+        final long[][] nightsSold = new long[TYPES][];
+        final long[][] revenueCents = new long[TYPES][];
+        final long[][] monthNightsSold = new long[TYPES][];
+        final long[][] monthRevenueCents = new long[TYPES][];
+        final long[] created = new long[TYPES];
+        final long[] cancelled = new long[TYPES];
+        final long[] stayLengths = new long[MAX_TRACKED_STAY + 1];
+        long confirmedStays;
+        long confirmedNights;
+        final BitSet counted = new BitSet();
+        final BitSet cancelledHandles = new BitSet();
+
+        Partial(int days, int months) {
+            for (int t = 0; t < TYPES; t++) {
+                nightsSold[t] = new long[days];
+                revenueCents[t] = new long[days];
+                monthNightsSold[t] = new long[months];
+                monthRevenueCents[t] = new long[months];
+            }
+        }
+
+        void add(Booking booking) {
+            int type = booking.getRoom().getRoomType().ordinal();
+            counted.set(booking.getHandle());
+            created[type]++;
+            if (booking.getStatus() == BookingStatus.CANCELLED) {
+                cancelledHandles.set(booking.getHandle());
+                cancelled[type]++;
+                return;
+            }
+            long price = priceCents(booking.getRoom());
+            long checkIn = booking.getCheckInDate().toEpochDay();
+            long checkOut = booking.getCheckOutDate().toEpochDay();
+            long day = Math.max(checkIn, originDay);
+            long end = Math.min(checkOut, originDay + days);
+            if (day < end) {
+                // walk the nights month by month rather than converting every night to a date
+                LocalDate date = LocalDate.ofEpochDay(day);
+                while (day < end) {
+                    int month = (int) (monthNumber(date) - originMonth);
+                    long monthEnd = Math.min(end, date.withDayOfMonth(1).plusMonths(1).toEpochDay());
+                    for (; day < monthEnd; day++) {
+                        int index = (int) (day - originDay);
+                        nightsSold[type][index]++;
+                        revenueCents[type][index] += price;
+                    }
+                    monthNightsSold[type][month] += monthEnd - date.toEpochDay();
+                    monthRevenueCents[type][month] += (monthEnd - date.toEpochDay()) * price;
+                    date = LocalDate.ofEpochDay(day);
+                }
+            }
+            int nights = (int) (checkOut - checkIn);
+            stayLengths[Math.min(nights, MAX_TRACKED_STAY)]++;
+            confirmedStays++;
+            confirmedNights += nights;
+        }
+
+        void merge(Partial other) {
+            for (int t = 0; t < TYPES; t++) {
+                addAll(nightsSold[t], other.nightsSold[t]);
+                addAll(revenueCents[t], other.revenueCents[t]);
+                addAll(monthNightsSold[t], other.monthNightsSold[t]);
+                addAll(monthRevenueCents[t], other.monthRevenueCents[t]);
+            }
+            addAll(created, other.created);
+            addAll(cancelled, other.cancelled);
+            addAll(stayLengths, other.stayLengths);
+            confirmedStays += other.confirmedStays;
+            confirmedNights += other.confirmedNights;
+            counted.or(other.counted);
+            cancelledHandles.or(other.cancelledHandles);
+        }
+
+        void copyInto(Aggregates target) {
+            for (int t = 0; t < TYPES; t++) {
+                copy(nightsSold[t], target.nightsSold[t]);
+                copy(revenueCents[t], target.revenueCents[t]);
+                copy(monthNightsSold[t], target.monthNightsSold[t]);
+                copy(monthRevenueCents[t], target.monthRevenueCents[t]);
+                target.created.set(t, created[t]);
+                target.cancelled.set(t, cancelled[t]);
+            }
+            copy(stayLengths, target.stayLengths);
+            target.confirmedStays.set(0, confirmedStays);
+            target.confirmedNights.set(0, confirmedNights);
+            target.counted.or(counted);
+            target.cancelledHandles.or(cancelledHandles);
+        }
+    }
+
+    // Live aggregates. Written only by the event thread (and by rebuild before it starts).
+    private static final class Aggregates {
+        final AtomicLongArray[] nightsSold = new AtomicLongArray[TYPES];
+        final AtomicLongArray[] revenueCents = new AtomicLongArray[TYPES];
+        final AtomicLongArray[] monthNightsSold = new AtomicLongArray[TYPES];
+        final AtomicLongArray[] monthRevenueCents = new AtomicLongArray[TYPES];
+        final AtomicLongArray created = new AtomicLongArray(TYPES);
+        final AtomicLongArray cancelled = new AtomicLongArray(TYPES);
+        final AtomicLongArray stayLengths = new AtomicLongArray(MAX_TRACKED_STAY + 1);
+        final AtomicLongArray confirmedStays = new AtomicLongArray(1);
+        final AtomicLongArray confirmedNights = new AtomicLongArray(1);
+        final AtomicIntegerArray roomsInService = new AtomicIntegerArray(TYPES);
+        final BitSet inServiceRooms = new BitSet();   // room handles counted in roomsInService; event thread only
+        final BitSet counted = new BitSet();          // booking handles included; event thread only
+        final BitSet cancelledHandles = new BitSet(); // of those, the ones already taken out again
+
+        Aggregates(int days, int months) {
+            for (int t = 0; t < TYPES; t++) {
+                nightsSold[t] = new AtomicLongArray(days);
+                revenueCents[t] = new AtomicLongArray(days);
+                monthNightsSold[t] = new AtomicLongArray(months);
+                monthRevenueCents[t] = new AtomicLongArray(months);
+            }
+        }
+    }
+
+    // -------------- HELPERS --------------
+
+    private int dayIndex(LocalDate night) {
+        long index = night.toEpochDay() - originDay;
+        return index >= 0 && index < days ? (int) index : -1;
+    }
+
+    private int monthIndex(YearMonth month) {
+        long index = month.getYear() * 12L + month.getMonthValue() - 1 - originMonth;
+        return index >= 0 && index < months ? (int) index : -1;
+    }
+
+    private static long monthNumber(LocalDate date) {
+        return date.getYear() * 12L + date.getMonthValue() - 1;
+    }
+
+    private static long sum(AtomicLongArray[] perType, RoomType roomType, int index) {
+        if (roomType != null) {
+            return perType[roomType.ordinal()].get(index);
+        }
+        long total = 0;
+        for (AtomicLongArray values : perType) {
+            total += values.get(index);
+        }
+        return total;
+    }
+
+    // For counters kept per type in one array (index = type ordinal).
+    private static long sumTypes(AtomicLongArray perType, RoomType roomType) {
+        if (roomType != null) {
+            return perType.get(roomType.ordinal());
+        }
+        long total = 0;
+        for (int t = 0; t < perType.length(); t++) {
+            total += perType.get(t);
+        }
+        return total;
+    }
+
+    private static long priceCents(ARoom room) {
+        return BigDecimal.valueOf(room.getPricePerNight()).setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal cents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static BigDecimal ratio(long cents, long divisor) {
+        return divisor == 0 ? BigDecimal.ZERO.setScale(2) : BigDecimal.valueOf(cents, 2).divide(BigDecimal.valueOf(divisor), 2, RoundingMode.HALF_EVEN);
+    }
+
+    private static void addAll(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += from[i];
+        }
+    }
+
+    private static void copy(long[] from, AtomicLongArray into) {
+        for (int i = 0; i < from.length; i++) {
+            into.set(i, from[i]);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// -------------- MICRO-BENCHMARKS FOR THE HOTEL HOT PATHS --------------
+// Self-contained harness (plain Java, no dependencies) measuring isRoomAvailable,
+// findRoom, findBooking, createBooking/cancelBooking, findAvailableRooms and multi-threaded
+// booking contention across a grid of room counts, booking history sizes and cancellation
+// ratios. Each benchmark runs timed warmup iterations, then measurement iterations, and the
+// results are written as a JSON array, one entry per benchmark and parameter set with its
+// mean score, error and per-iteration scores, so runs can be compared across releases.
+//
+// Usage: java hallofx.HotelBenchmark [--rooms=10,1000,10000] [--history=1000,100000,1000000]
+//            [--cancel=0,0.25] [--threads=1,4,8] [--warmup=3] [--iterations=5] [--millis=500]
+//            [--out=results.json]
+public class HotelBenchmark {
+    private static final LocalDate BASE_DATE = LocalDate.of(2025, 1, 1);
+    private static volatile long sink; // keeps results alive so the JIT cannot drop the work
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationMillis;
+    private final List<String> results = new ArrayList<>();
+
+    HotelBenchmark(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationMillis = iterationMillis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int[] roomCounts = intList(options.getOrDefault("rooms", "10,1000,10000"));
+        int[] historySizes = intList(options.getOrDefault("history", "1000,100000,1000000"));
+        double[] cancelRatios = doubleList(options.getOrDefault("cancel", "0,0.25"));
+        int[] threadCounts = intList(options.getOrDefault("threads", "1,4," + Runtime.getRuntime().availableProcessors()));
+        HotelBenchmark benchmark = new HotelBenchmark(
+                Integer.parseInt(options.getOrDefault("warmup", "3")),
+                Integer.parseInt(options.getOrDefault("iterations", "5")),
+                Long.parseLong(options.getOrDefault("millis", "500")));
+
+        PrintStream console = System.out;
+        for (int rooms : roomCounts) {
+            for (int history : historySizes) {
+                for (double cancelRatio : cancelRatios) {
+                    benchmark.runSingleThreaded(console, rooms, history, cancelRatio);
+                }
+            }
+            for (int threads : threadCounts) {
+                benchmark.runContention(console, rooms, threads);
+            }
+        }
+
+        String json = "[\n" + String.join(",\n", benchmark.results) + "\n]\n";
+        String out = options.get("out");
+        if (out != null) {
+            Files.write(Paths.get(out), json.getBytes(StandardCharsets.UTF_8));
+            console.println("Results written to " + out);
+        } else {
+            console.print(json);
+        }
+    }
+
+    // -------- Fixture --------
+
+    // Rooms R0..R(n-1) with history spread evenly: each room gets consecutive 2-night stays
+    // from BASE_DATE on, and every (1 / cancelRatio)-th booking is cancelled.
+    static Hotel populate(int roomCount, int historySize, double cancelRatio) {
+        Hotel hotel = new Hotel();
+        for (int i = 0; i < roomCount; i++) {
+            hotel.addRoom(new StandardRoom("R" + i, 100.0 + (i % 50), 1 + (i % 4)));
+        }
+        Guest guest = hotel.registerGuest("Benchmark Guest", "bench@example.com");
+        int cancelEvery = cancelRatio <= 0 ? Integer.MAX_VALUE : (int) Math.round(1 / cancelRatio);
+        for (int i = 0; i < historySize; i++) {
+            int room = i % roomCount;
+            LocalDate checkIn = BASE_DATE.plusDays(2L * (i / roomCount));
+            Booking booking = hotel.createBooking(guest, "R" + room, checkIn, checkIn.plusDays(2));
+            if (i % cancelEvery == 0) {
+                hotel.cancelBooking(booking.getBookingId());
+            }
+        }
+        return hotel;
+    }
+
+    private static LocalDate historyEnd(int roomCount, int historySize) {
+        return BASE_DATE.plusDays(2L * ((historySize + roomCount - 1) / roomCount) + 2);
+    }
+
+    // -------- Benchmarks --------
+
+    private void runSingleThreaded(PrintStream console, int roomCount, int historySize, double cancelRatio) {
+        Hotel hotel = populate(roomCount, historySize, cancelRatio);
+        Guest guest = hotel.findGuestByEmail("bench@example.com");
+        List<ARoom> rooms = hotel.getAllRooms();
+        long stays = Math.max(1, historySize / roomCount);
+        LocalDate end = historyEnd(roomCount, historySize);
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("rooms", roomCount);
+        params.put("history", historySize);
+        params.put("cancelRatio", cancelRatio);
+
+        measure(console, "isRoomAvailable", params, 1, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            LocalDate checkIn = BASE_DATE.plusDays(random.nextLong(2 * stays));
+            return hotel.isRoomAvailable(rooms.get(random.nextInt(rooms.size())), checkIn, checkIn.plusDays(3)) ? 1 : 0;
+        });
+        measure(console, "findRoom", params, 1, () -> {
+            ARoom room = hotel.findRoom("R" + ThreadLocalRandom.current().nextInt(roomCount));
+            return room == null ? 0 : room.getCapacity();
+        });
+        measure(console, "findBooking", params, 1, () -> {
+            Booking booking = hotel.findBooking("B" + (1 + ThreadLocalRandom.current().nextInt(historySize)));
+            return booking == null ? 0 : booking.getStatus().ordinal();
+        });
+        measure(console, "findAvailableRooms", params, 1, () -> {
+            LocalDate checkIn = BASE_DATE.plusDays(ThreadLocalRandom.current().nextLong(2 * stays));
+            return hotel.findAvailableRooms(checkIn, checkIn.plusDays(3), RoomSearchFilter.ANY).size();
+        });
+        // Books a stay after the history and cancels it again, so the fixture does not drift.
+        measure(console, "createAndCancelBooking", params, 1, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            LocalDate checkIn = end.plusDays(random.nextInt(3650));
+            try {
+                Booking booking = hotel.createBooking(guest, "R" + random.nextInt(roomCount), checkIn, checkIn.plusDays(1));
+                hotel.cancelBooking(booking.getBookingId());
+                return 1;
+            } catch (IllegalStateException alreadyBooked) {
+                return 0;
+            }
+        });
+    }
+
+    // All threads book random 1-3 night stays over a 1-year window of the same rooms, so
+    // most attempts contend. Reports booking attempts per second and fails loudly if any
+    // room ends up with two overlapping confirmed stays.
+    private void runContention(PrintStream console, int roomCount, int threads) throws InterruptedException {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("rooms", roomCount);
+        params.put("threads", threads);
+        List<Double> scores = new ArrayList<>();
+        for (int iteration = 0; iteration < warmupIterations + measurementIterations; iteration++) {
+            Hotel hotel = populate(roomCount, 0, 0);
+            Guest guest = hotel.findGuestByEmail("bench@example.com");
+            AtomicLong attempts = new AtomicLong();
+            CountDownLatch start = new CountDownLatch(1);
+            long deadline = System.nanoTime() + iterationMillis * 1_000_000L;
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Thread worker = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long done = 0;
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    while (System.nanoTime() < deadline) {
+                        LocalDate checkIn = BASE_DATE.plusDays(random.nextInt(365));
+                        try {
+                            hotel.createBooking(guest, "R" + random.nextInt(roomCount), checkIn, checkIn.plusDays(1 + random.nextInt(3)));
+                        } catch (IllegalStateException taken) {
+                            // expected under contention
+                        }
+                        done++;
+                    }
+                    attempts.addAndGet(done);
+                });
+                worker.start();
+                workers.add(worker);
+            }
+            long began = System.nanoTime();
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            double seconds = (System.nanoTime() - began) / 1e9;
+            verifyNoDoubleBookings(hotel);
+            if (iteration >= warmupIterations) {
+                scores.add(attempts.get() / seconds);
+            }
+        }
+        record(console, "bookingContention", params, threads, "ops/s", scores);
+    }
+
+    static void verifyNoDoubleBookings(Hotel hotel) {
+        Map<String, List<Booking>> byRoom = new LinkedHashMap<>();
+        for (Booking booking : hotel.getAllBookings()) {
+            if (booking.getStatus() == BookingStatus.CONFIRMED) {
+                byRoom.computeIfAbsent(booking.getRoom().getRoomId(), k -> new ArrayList<>()).add(booking);
+            }
+        }
+        for (List<Booking> stays : byRoom.values()) {
+            stays.sort((a, b) -> a.getCheckInDate().compareTo(b.getCheckInDate()));
+            for (int i = 1; i < stays.size(); i++) {
+                if (stays.get(i).getCheckInDate().isBefore(stays.get(i - 1).getCheckOutDate())) {
+                    throw new IllegalStateException("Double booking: " + stays.get(i - 1) + " overlaps " + stays.get(i));
+                }
+            }
+        }
+    }
+
+    // -------- Measurement --------
+
+    interface Operation {
+        long run();
+    }
+
+    // Runs op repeatedly for each timed iteration and records the average time per call.
+    private void measure(PrintStream console, String name, Map<String, Object> params, int threads, Operation op) {
+        List<Double> scores = new ArrayList<>();
+        for (int iteration = 0; iteration < warmupIterations + measurementIterations; iteration++) {
+            long deadline = System.nanoTime() + iterationMillis * 1_000_000L;
+            long calls = 0;
+            long acc = 0;
+            long began = System.nanoTime();
+            long now;
+            do {
+                for (int i = 0; i < 64; i++) {
+                    acc += op.run();
+                }
+                calls += 64;
+                now = System.nanoTime();
+            } while (now < deadline);
+            sink += acc;
+            if (iteration >= warmupIterations) {
+                scores.add((double) (now - began) / calls);
+            }
+        }
+        record(console, name, params, threads, "ns/op", scores);
+    }
+
+    private void record(PrintStream console, String name, Map<String, Object> params, int threads, String unit, List<Double> scores) {
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= scores.size();
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        double error = scores.size() > 1 ? Math.sqrt(variance / (scores.size() - 1)) : Double.NaN;
+
+        StringBuilder paramsJson = new StringBuilder();
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            if (paramsJson.length() > 0) {
+                paramsJson.append(", ");
+            }
+            paramsJson.append('"').append(param.getKey()).append("\": \"").append(param.getValue()).append('"');
+        }
+        StringBuilder raw = new StringBuilder();
+        for (double score : scores) {
+            if (raw.length() > 0) {
+                raw.append(", ");
+            }
+            raw.append(number(score));
+        }
+        results.add(String.format(Locale.ROOT,
+                "  {\"benchmark\": \"hallofx.HotelBenchmark.%s\", \"mode\": \"%s\", \"threads\": %d, \"params\": {%s},%n"
+                + "   \"primaryMetric\": {\"score\": %s, \"scoreError\": %s, \"scoreUnit\": \"%s\", \"rawData\": [[%s]]}}",
+                name, unit.equals("ops/s") ? "thrpt" : "avgt", threads, paramsJson, number(mean), number(error), unit, raw));
+        console.println(String.format(Locale.ROOT, "%-24s %-40s %14.1f %s", name, params, mean, unit));
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) ? "\"NaN\"" : String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    // -------- Options --------
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static int[] intList(String value) {
+        String[] parts = value.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    private static double[] doubleList(String value) {
+        String[] parts = value.split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Double.parseDouble(parts[i].trim());
+        }
+        return values;
+    }
+}
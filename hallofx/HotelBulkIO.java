@@ -0,0 +1,649 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// -------------- BULK IMPORT / EXPORT --------------
+// Moves whole inventories and booking histories in and out of a Hotel, in two formats:
+//
+// CSV, one file per kind, each with a header line (fields may be "quoted", "" inside quotes
+// is a quote; line breaks inside fields are not supported):
+//   rooms.csv     roomId,type,pricePerNight,capacity,inService
+//   guests.csv    guestId,name,email
+//   bookings.csv  bookingId,guestId,roomId,checkIn,checkOut,status      (ISO dates)
+//
+// Binary (.hotx), one file, all numbers big-endian:
+//   int magic "HOTX", int version
+//   int roomCount,    per room:    utf id, byte type, double price, int capacity, byte inService
+//   int guestCount,   per guest:   int guest number, utf name, utf email ("" for none)
+//   int bookingCount, per booking: int booking number, int guest number, int room (position
+//                                  in this file's rooms, or -1 followed by a utf room ID),
+//                                  int check-in and int check-out (epoch days), byte status
+//   int magic again, so a truncated file is detected
+// where utf is an unsigned short byte length followed by UTF-8 bytes.
+//
+// Both read and write through FileChannels with one fixed buffer, and import checks every
+// record as it is read (format, references to earlier records or to the hotel, duplicate
+// IDs), then hands the batch to Hotel.bulkLoad, which indexes it in one go. Only the parsed
+// objects themselves are kept, never the file. Bookings may refer to rooms and guests the
+// hotel already has, so histories can be imported into an existing property.
+//
+// Usage: java hallofx.HotelBulkIO --data=hotel-data (--import=FILE.hotx | --import=DIR)
+//                                                   (--export=FILE.hotx | --export=DIR)
+// where DIR holds (or receives) rooms.csv, guests.csv and bookings.csv.
+public class HotelBulkIO {
+    static final int BINARY_MAGIC = 0x484F5458; // "HOTX"
+    static final int BINARY_VERSION = 1;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int MAX_UTF_BYTES = 0xFFFF;
+
+    static final String ROOMS_HEADER = "roomId,type,pricePerNight,capacity,inService";
+    static final String GUESTS_HEADER = "guestId,name,email";
+    static final String BOOKINGS_HEADER = "bookingId,guestId,roomId,checkIn,checkOut,status";
+
+    // Numbers of records imported or exported.
+    static final class Counts {
+        final int rooms;
+        final int guests;
+        final long bookings;
+
+        Counts(int rooms, int guests, long bookings) {
+            this.rooms = rooms;
+            this.guests = guests;
+            this.bookings = bookings;
+        }
+
+        @Override
+        public String toString() { return rooms + " rooms, " + guests + " guests, " + bookings + " bookings"; }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = HotelServer.parseOptions(args);
+        String data = options.getOrDefault("data", "hotel-data");
+        try (HotelStore store = HotelStore.open(Paths.get(data))) {
+            Hotel hotel = store.getHotel();
+            if (options.containsKey("import")) {
+                Path source = Paths.get(options.get("import"));
+                long start = System.nanoTime();
+                Counts counts = Files.isDirectory(source) ? importCsv(hotel, source) : importBinary(hotel, source);
+                System.out.printf("Imported %s from %s in %.2fs.%n", counts, source, (System.nanoTime() - start) / 1e9);
+                store.snapshot(); // so the next start loads one snapshot instead of replaying the import
+            }
+            if (options.containsKey("export")) {
+                Path target = Paths.get(options.get("export"));
+                long start = System.nanoTime();
+                Counts counts = target.toString().endsWith(".hotx") ? exportBinary(hotel, target) : exportCsv(hotel, target);
+                System.out.printf("Exported %s to %s in %.2fs.%n", counts, target, (System.nanoTime() - start) / 1e9);
+            }
+        }
+    }
+
+    // -------------- CSV --------------
+
+    // Imports rooms.csv, guests.csv and bookings.csv from the directory; missing files count as empty.
+    public static Counts importCsv(Hotel hotel, Path directory) throws IOException {
+        return importCsv(hotel, directory.resolve("rooms.csv"), directory.resolve("guests.csv"), directory.resolve("bookings.csv"));
+    }
+
+    // Any of the files may be null or missing.
+    public static Counts importCsv(Hotel hotel, Path roomsFile, Path guestsFile, Path bookingsFile) throws IOException {
+        Batch batch = new Batch(hotel, "line");
+        readCsv(roomsFile, ROOMS_HEADER, (fields, line) -> {
+            expectFields(fields, 5, line);
+            batch.addRoom(fields[0], parseRoomType(fields[1], line), parseDouble(fields[2], line), parseInt(fields[3], line),
+                    parseBoolean(fields[4], line), line);
+        });
+        readCsv(guestsFile, GUESTS_HEADER, (fields, line) -> {
+            expectFields(fields, 3, line);
+            batch.addGuest(handle(fields[0], 'G', line), fields[1], fields[2], line);
+        });
+        readCsv(bookingsFile, BOOKINGS_HEADER, (fields, line) -> {
+            expectFields(fields, 6, line);
+            batch.addBooking(handle(fields[0], 'B', line), handle(fields[1], 'G', line), batch.room(fields[2], line),
+                    parseDate(fields[3], line), parseDate(fields[4], line), parseStatus(fields[5], line), line);
+        });
+        return batch.load();
+    }
+
+    // Writes rooms.csv, guests.csv and bookings.csv (live and archived bookings) into the directory.
+    public static Counts exportCsv(Hotel hotel, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        // bookings first, so every room and guest they refer to is exported too
+        long[] bookingCount = new long[1];
+        try (Writer out = csvWriter(directory.resolve("bookings.csv"))) {
+            out.write(BOOKINGS_HEADER);
+            out.write('\n');
+            StringBuilder line = new StringBuilder(96);
+            Visitor<Booking> writeBooking = booking -> {
+                line.setLength(0);
+                line.append(booking.getBookingId()).append(',').append(booking.getGuest().getGuestId()).append(',');
+                appendCsvField(line, booking.getRoom().getRoomId());
+                line.append(',').append(booking.getCheckInDate()).append(',').append(booking.getCheckOutDate())
+                    .append(',').append(booking.getStatus()).append('\n');
+                out.append(line);
+                bookingCount[0]++;
+            };
+            forEachBooking(hotel, writeBooking);
+        }
+        List<Guest> guests = hotel.getAllGuests();
+        try (Writer out = csvWriter(directory.resolve("guests.csv"))) {
+            out.write(GUESTS_HEADER);
+            out.write('\n');
+            StringBuilder line = new StringBuilder(96);
+            for (Guest guest : guests) {
+                line.setLength(0);
+                line.append(guest.getGuestId()).append(',');
+                appendCsvField(line, guest.getName());
+                line.append(',');
+                appendCsvField(line, guest.getEmail() == null ? "" : guest.getEmail());
+                out.append(line.append('\n'));
+            }
+        }
+        List<ARoom> rooms = hotel.getAllRooms();
+        try (Writer out = csvWriter(directory.resolve("rooms.csv"))) {
+            out.write(ROOMS_HEADER);
+            out.write('\n');
+            StringBuilder line = new StringBuilder(64);
+            for (ARoom room : rooms) {
+                line.setLength(0);
+                appendCsvField(line, room.getRoomId());
+                line.append(',').append(room.getRoomType()).append(',').append(room.getPricePerNight())
+                    .append(',').append(room.getCapacity()).append(',').append(room.isInService()).append('\n');
+                out.append(line);
+            }
+        }
+        return new Counts(rooms.size(), guests.size(), bookingCount[0]);
+    }
+
+    private interface LineHandler {
+        void handle(String[] fields, long line);
+    }
+
+    private static void readCsv(Path file, String header, LineHandler handler) throws IOException {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             BufferedReader in = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8), BUFFER_BYTES >> 1)) {
+            String first = in.readLine();
+            if (first == null || !first.replace("\uFEFF", "").trim().equalsIgnoreCase(header)) {
+                throw new IllegalArgumentException(file.getFileName() + ": expected header \"" + header + "\".");
+            }
+            List<String> fields = new ArrayList<>(8);
+            StringBuilder field = new StringBuilder(64);
+            long lineNumber = 1;
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                splitCsvLine(line, fields, field, lineNumber);
+                handler.handle(fields.toArray(new String[0]), lineNumber);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(file.getFileName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void splitCsvLine(String line, List<String> fields, StringBuilder field, long lineNumber) {
+        fields.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("line " + lineNumber + ": unterminated quoted field.");
+        }
+        fields.add(field.toString());
+    }
+
+    private static void appendCsvField(StringBuilder line, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+        if (value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Cannot export a line break in a CSV field: " + value);
+        }
+        line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static Writer csvWriter(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_BYTES >> 1);
+    }
+
+    // -------------- BINARY --------------
+
+    public static Counts importBinary(Hotel hotel, Path file) throws IOException {
+        Batch batch = new Batch(hotel, "record");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            BinaryIn in = new BinaryIn(channel);
+            if (in.readInt() != BINARY_MAGIC) {
+                throw new IOException(file + " is not a hotel export.");
+            }
+            int version = in.readInt();
+            if (version != BINARY_VERSION) {
+                throw new IOException(file + " is export version " + version + "; this build reads version " + BINARY_VERSION + ".");
+            }
+            RoomType[] types = RoomType.values();
+            BookingStatus[] statuses = BookingStatus.values();
+            int roomCount = in.readCount();
+            List<ARoom> fileRooms = new ArrayList<>(roomCount);
+            for (int i = 0; i < roomCount; i++) {
+                String roomId = in.readUtf();
+                int type = in.readByte();
+                if (type < 0 || type >= types.length) {
+                    throw new IOException("Room " + roomId + ": unknown room type " + type + ".");
+                }
+                fileRooms.add(batch.addRoom(roomId, types[type], in.readDouble(), in.readInt(), in.readByte() != 0, i + 1));
+            }
+            int guestCount = in.readCount();
+            for (int i = 0; i < guestCount; i++) {
+                batch.addGuest(in.readInt(), in.readUtf(), in.readUtf(), i + 1);
+            }
+            long bookingCount = in.readCount();
+            for (long i = 0; i < bookingCount; i++) {
+                int bookingNo = in.readInt();
+                int guestNo = in.readInt();
+                int roomRef = in.readInt();
+                ARoom room;
+                if (roomRef == -1) {
+                    room = batch.room(in.readUtf(), i + 1);
+                } else if (roomRef >= 0 && roomRef < fileRooms.size()) {
+                    room = fileRooms.get(roomRef);
+                } else {
+                    throw new IOException("Booking B" + bookingNo + ": room position " + roomRef + " is out of range.");
+                }
+                LocalDate checkIn = LocalDate.ofEpochDay(in.readInt());
+                LocalDate checkOut = LocalDate.ofEpochDay(in.readInt());
+                int status = in.readByte();
+                if (status < 0 || status >= statuses.length) {
+                    throw new IOException("Booking B" + bookingNo + ": unknown status " + status + ".");
+                }
+                batch.addBooking(bookingNo, guestNo, room, checkIn, checkOut, statuses[status], i + 1);
+            }
+            if (in.readInt() != BINARY_MAGIC) {
+                throw new IOException(file + " is damaged: no end marker after the bookings.");
+            }
+        }
+        return batch.load();
+    }
+
+    // Writes every room, guest and booking (live and archived) to the file.
+    public static Counts exportBinary(Hotel hotel, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BinaryOut out = new BinaryOut(channel);
+            out.writeInt(BINARY_MAGIC);
+            out.writeInt(BINARY_VERSION);
+
+            List<ARoom> rooms = hotel.getAllRooms();
+            out.writeInt(rooms.size());
+            for (ARoom room : rooms) {
+                out.writeUtf(room.getRoomId());
+                out.writeByte(room.getRoomType().ordinal());
+                out.writeDouble(room.getPricePerNight());
+                out.writeInt(room.getCapacity());
+                out.writeByte(room.isInService() ? 1 : 0);
+            }
+            List<Guest> guests = hotel.getAllGuests();
+            out.writeInt(guests.size());
+            for (Guest guest : guests) {
+                out.writeInt(guest.getHandle());
+                out.writeUtf(guest.getName());
+                out.writeUtf(guest.getEmail() == null ? "" : guest.getEmail());
+            }
+
+            // The booking count is patched in once known: archived bookings are streamed.
+            // Rooms added since the room list was read are written by ID.
+            long countPosition = out.position();
+            out.writeInt(0);
+            long[] bookingCount = new long[1];
+            forEachBooking(hotel, booking -> {
+                ARoom room = booking.getRoom();
+                int position = room.getHandle();
+                out.writeInt(booking.getHandle());
+                out.writeInt(booking.getGuest().getHandle());
+                if (position >= 0 && position < rooms.size() && rooms.get(position) == room) {
+                    out.writeInt(position);
+                } else {
+                    out.writeInt(-1);
+                    out.writeUtf(room.getRoomId());
+                }
+                out.writeInt(epochDay(booking, booking.getCheckInDate()));
+                out.writeInt(epochDay(booking, booking.getCheckOutDate()));
+                out.writeByte(booking.getStatus().ordinal());
+                bookingCount[0]++;
+            });
+            out.writeInt(BINARY_MAGIC);
+            out.flush();
+            if (bookingCount[0] > Integer.MAX_VALUE) {
+                throw new IOException("Too many bookings for export version " + BINARY_VERSION + ".");
+            }
+            channel.write(ByteBuffer.allocate(4).putInt(0, (int) bookingCount[0]), countPosition);
+            channel.force(true);
+            return new Counts(rooms.size(), guests.size(), bookingCount[0]);
+        }
+    }
+
+    // Sequential reader over a channel through one direct buffer, refilled as it drains.
+    private static final class BinaryIn {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final byte[] utf = new byte[MAX_UTF_BYTES];
+
+        BinaryIn(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Hotel export ends unexpectedly.");
+                }
+            }
+            buffer.flip();
+        }
+
+        int readByte() throws IOException { require(1); return buffer.get(); }
+        int readInt() throws IOException { require(4); return buffer.getInt(); }
+        double readDouble() throws IOException { require(8); return buffer.getDouble(); }
+
+        int readCount() throws IOException {
+            int count = readInt();
+            if (count < 0) {
+                throw new IOException("Hotel export is damaged: negative record count " + count + ".");
+            }
+            return count;
+        }
+
+        String readUtf() throws IOException {
+            require(2);
+            int length = buffer.getShort() & 0xFFFF;
+            require(length);
+            buffer.get(utf, 0, length);
+            return new String(utf, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    // Sequential writer into a channel through one direct buffer. The Visitor-based booking
+    // export cannot throw IOException, so write errors surface as UncheckedIOException there.
+    private static final class BinaryOut {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private long written;
+
+        BinaryOut(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        long position() { return written + buffer.position(); }
+
+        private void room(int bytes) {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    written += channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+
+        void writeByte(int value) { room(1); buffer.put((byte) value); }
+        void writeInt(int value) { room(4); buffer.putInt(value); }
+        void writeDouble(double value) { room(8); buffer.putDouble(value); }
+
+        void writeUtf(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_UTF_BYTES) {
+                throw new IllegalArgumentException("Text too long to export (" + bytes.length + " bytes): " + value.substring(0, 40) + "...");
+            }
+            room(2 + bytes.length);
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    // -------------- IMPORT BATCH --------------
+    // Checks each record as it arrives and keeps the resulting objects for Hotel.bulkLoad.
+    private static final class Batch {
+        private final Hotel hotel;
+        private final List<ARoom> rooms = new ArrayList<>();
+        private final Map<String, ARoom> roomsById = new HashMap<>();
+        private final List<Guest> guests = new ArrayList<>();
+        private final HandleTable<Guest> guestsByHandle = new HandleTable<>();
+        private final List<Booking> bookings = new ArrayList<>();
+        private final HandleTable<Booking> bookingsByHandle = new HandleTable<>();
+        private final String unit; // how errors name a record: "line" for CSV, "record" for binary
+
+        Batch(Hotel hotel, String unit) {
+            this.hotel = hotel;
+            this.unit = unit;
+        }
+
+        ARoom addRoom(String roomId, RoomType type, double pricePerNight, int capacity, boolean inService, long record) {
+            if (roomId.isEmpty()) {
+                throw new IllegalArgumentException(unit + " " + record + ": room ID cannot be empty.");
+            }
+            if (!(pricePerNight > 0) || Double.isInfinite(pricePerNight)) {
+                throw new IllegalArgumentException(unit + " " + record + ": room " + roomId + " needs a positive price.");
+            }
+            if (capacity <= 0) {
+                throw new IllegalArgumentException(unit + " " + record + ": room " + roomId + " needs a positive capacity.");
+            }
+            if (roomsById.containsKey(roomId) || hotel.findRoom(roomId) != null) {
+                throw new IllegalArgumentException(unit + " " + record + ": room " + roomId + " already exists.");
+            }
+            ARoom room = HotelStore.newRoom(type, roomId, pricePerNight, capacity);
+            room.setInService(inService);
+            rooms.add(room);
+            roomsById.put(roomId, room);
+            return room;
+        }
+
+        void addGuest(int guestNo, String name, String email, long record) {
+            if (guestNo <= 0) {
+                throw new IllegalArgumentException(unit + " " + record + ": guest number must be positive.");
+            }
+            if (name.trim().isEmpty()) {
+                throw new IllegalArgumentException(unit + " " + record + ": guest G" + guestNo + " has no name.");
+            }
+            Guest guest = new Guest(guestNo, name, email.isEmpty() ? null : email);
+            if (guestsByHandle.putIfAbsent(guestNo, guest) != null || hotel.findGuest(guestNo) != null) {
+                throw new IllegalArgumentException(unit + " " + record + ": guest G" + guestNo + " already exists.");
+            }
+            guests.add(guest);
+        }
+
+        ARoom room(String roomId, long record) {
+            ARoom room = roomsById.get(roomId);
+            if (room == null) {
+                room = hotel.findRoom(roomId);
+            }
+            if (room == null) {
+                throw new IllegalArgumentException(unit + " " + record + ": unknown room " + roomId + ".");
+            }
+            return room;
+        }
+
+        void addBooking(int bookingNo, int guestNo, ARoom room, LocalDate checkIn, LocalDate checkOut, BookingStatus status, long record) {
+            if (bookingNo <= 0) {
+                throw new IllegalArgumentException(unit + " " + record + ": booking number must be positive.");
+            }
+            Guest guest = guestsByHandle.get(guestNo);
+            if (guest == null) {
+                guest = hotel.findGuest(guestNo);
+            }
+            if (guest == null) {
+                throw new IllegalArgumentException(unit + " " + record + ": booking B" + bookingNo + " refers to unknown guest G" + guestNo + ".");
+            }
+            if (!checkOut.isAfter(checkIn)) {
+                throw new IllegalArgumentException(unit + " " + record + ": booking B" + bookingNo + " checks out before it checks in.");
+            }
+            Booking booking = new Booking(bookingNo, guest, room, checkIn, checkOut);
+            booking.setBookingStatus(status);
+            if (bookingsByHandle.putIfAbsent(bookingNo, booking) != null) {
+                throw new IllegalArgumentException(unit + " " + record + ": booking B" + bookingNo + " appears twice.");
+            }
+            bookings.add(booking);
+        }
+
+        Counts load() {
+            hotel.bulkLoad(rooms, guests, bookings);
+            return new Counts(rooms.size(), guests.size(), bookings.size());
+        }
+    }
+
+    // -------------- HELPERS --------------
+
+    private interface Visitor<T> {
+        void visit(T value) throws IOException;
+    }
+
+    // Live bookings in ID order, then archived ones.
+    private static void forEachBooking(Hotel hotel, Visitor<Booking> visitor) throws IOException {
+        try {
+            for (Booking booking : hotel.getAllBookings()) {
+                visitor.visit(booking);
+            }
+            hotel.forEachArchivedBooking(booking -> {
+                try {
+                    visitor.visit(booking);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Dates are written as int days; one that does not fit is refused rather than truncated.
+    private static int epochDay(Booking booking, LocalDate date) throws IOException {
+        long day = date.toEpochDay();
+        if (day < Integer.MIN_VALUE || day > Integer.MAX_VALUE) {
+            throw new IOException("Booking " + booking.getBookingId() + ": date " + date + " does not fit export version " + BINARY_VERSION + ".");
+        }
+        return (int) day;
+    }
+
+    private static void expectFields(String[] fields, int count, long line) {
+        if (fields.length != count) {
+            throw new IllegalArgumentException("line " + line + ": expected " + count + " fields but found " + fields.length + ".");
+        }
+    }
+
+    private static int handle(String id, char prefix, long line) {
+        int handle = Hotel.handleOf(id.trim(), prefix);
+        if (handle <= 0) {
+            throw new IllegalArgumentException("line " + line + ": \"" + id + "\" is not an ID of the form " + prefix + "<number>.");
+        }
+        return handle;
+    }
+
+    private static RoomType parseRoomType(String value, long line) {
+        try {
+            return RoomType.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("line " + line + ": unknown room type \"" + value + "\".");
+        }
+    }
+
+    private static BookingStatus parseStatus(String value, long line) {
+        try {
+            return BookingStatus.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("line " + line + ": unknown booking status \"" + value + "\".");
+        }
+    }
+
+    private static double parseDouble(String value, long line) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("line " + line + ": \"" + value + "\" is not a number.");
+        }
+    }
+
+    private static int parseInt(String value, long line) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("line " + line + ": \"" + value + "\" is not a whole number.");
+        }
+    }
+
+    private static boolean parseBoolean(String value, long line) {
+        String trimmed = value.trim();
+        if (trimmed.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (trimmed.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("line " + line + ": \"" + value + "\" is not true or false.");
+    }
+
+    private static LocalDate parseDate(String value, long line) {
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("line " + line + ": \"" + value + "\" is not a date (YYYY-MM-DD).");
+        }
+    }
+}
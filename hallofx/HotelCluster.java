@@ -0,0 +1,312 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+// -------------- SHARDED HOTEL CLUSTER --------------
+// Spreads a chain's rooms and their bookings over several Hotels (shards), each with its
+// own heap, locks, journal and archive, in this JVM or in other processes. Rooms are
+// partitioned by room ID range: a shard owns the IDs from its first room ID up to the next
+// shard's. With property-prefixed IDs ("lon-101", "par-7") one range per property
+// partitions by property, and a big property can be split into several ranges.
+// Single-room operations go to the owning shard only. Availability searches go to every
+// shard at once and the results are merged in range order (scatter-gather), so a search
+// takes as long as the slowest shard rather than the sum of them.
+// Bookings are identified across the cluster as "<shard>.<bookingId>" ("lon.B12"), since
+// every shard numbers its own; a booking never moves between shards.
+//
+// Usage: java hallofx.HotelCluster [--shards=4] [--rooms=20000 (per shard)] [--bookings=20000]
+//            [--searches=2000] [--clients=64] [--local=true (shards in this JVM, not child processes)]
+public class HotelCluster implements AutoCloseable {
+    private static final String READY_LINE = "Hotel server listening on port ";
+
+    private final Object shardsLock = new Object();
+    private volatile NavigableMap<String, HotelShard> shardsByFirstRoomId = Collections.emptyNavigableMap(); // copy-on-write
+    private volatile Map<String, HotelShard> shardsByName = Collections.emptyMap();                          // copy-on-write
+    private final ExecutorService scatter = HotelServer.newRequestExecutor();
+
+    // The shard owns the room IDs from firstRoomId (inclusive) up to the next shard's first
+    // room ID; "" makes it own everything below the other shards. Shards are added before
+    // rooms, since rooms are not moved when a range is split.
+    public void addShard(HotelShard shard, String firstRoomId) {
+        if (shard == null || firstRoomId == null) {
+            throw new IllegalArgumentException("Shard and first room ID must be provided.");
+        }
+        String name = shard.getName();
+        if (name == null || !name.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Shard name must be letters, digits, '-' or '_' but was " + name + ".");
+        }
+        synchronized (shardsLock) {
+            if (shardsByName.containsKey(name)) {
+                throw new IllegalArgumentException("Shard " + name + " is already in the cluster.");
+            }
+            if (shardsByFirstRoomId.containsKey(firstRoomId)) {
+                throw new IllegalArgumentException("Shard " + shardsByFirstRoomId.get(firstRoomId).getName() + " already starts at room ID " + firstRoomId + ".");
+            }
+            TreeMap<String, HotelShard> byRange = new TreeMap<>(shardsByFirstRoomId);
+            byRange.put(firstRoomId, shard);
+            Map<String, HotelShard> byName = new LinkedHashMap<>(shardsByName);
+            byName.put(name, shard);
+            this.shardsByFirstRoomId = Collections.unmodifiableNavigableMap(byRange);
+            this.shardsByName = Collections.unmodifiableMap(byName);
+        }
+    }
+
+    // In room ID range order.
+    public List<HotelShard> getShards() { return new ArrayList<>(shardsByFirstRoomId.values()); }
+
+    public HotelShard getShard(String name) { return shardsByName.get(name); }
+
+    public HotelShard shardFor(String roomId) {
+        if (roomId == null) {
+            throw new IllegalArgumentException("Room ID cannot be null.");
+        }
+        Map.Entry<String, HotelShard> owner = shardsByFirstRoomId.floorEntry(roomId);
+        if (owner == null) {
+            throw new IllegalArgumentException("No shard owns room ID " + roomId + ".");
+        }
+        return owner.getValue();
+    }
+
+    // -------------- ROOMS --------------
+
+    public void addRoom(ARoom room) {
+        if (room == null || room.getRoomId() == null) {
+            throw new IllegalArgumentException("Room or Room ID cannot be null.");
+        }
+        shardFor(room.getRoomId()).addRoom(room);
+    }
+
+    public ARoom findRoom(String roomId) {
+        return shardFor(roomId).findRoom(roomId);
+    }
+
+    // Available rooms of every shard, searched in parallel, in room ID range order of the
+    // shards. Fails as a whole if any shard does, rather than returning part of the chain.
+    public List<ARoom> findAvailableRooms(LocalDate checkIn, LocalDate checkOut, RoomSearchFilter filter) {
+        if (checkIn == null || checkOut == null || !checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("Check-out date must be after check-in date.");
+        }
+        List<HotelShard> shards = getShards();
+        if (shards.size() == 1) {
+            return shards.get(0).findAvailableRooms(checkIn, checkOut, filter);
+        }
+        List<CompletableFuture<List<ARoom>>> parts = new ArrayList<>(shards.size());
+        for (HotelShard shard : shards) {
+            parts.add(CompletableFuture.supplyAsync(() -> shard.findAvailableRooms(checkIn, checkOut, filter), scatter));
+        }
+        List<ARoom> available = new ArrayList<>();
+        for (CompletableFuture<List<ARoom>> part : parts) {
+            try {
+                available.addAll(part.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return available;
+    }
+
+    // -------------- BOOKINGS --------------
+
+    public ClusterBooking createBooking(String guestName, String email, String roomId, LocalDate checkIn, LocalDate checkOut) {
+        HotelShard shard = shardFor(roomId);
+        return new ClusterBooking(shard.getName(), shard.createBooking(guestName, email, roomId, checkIn, checkOut));
+    }
+
+    // null if the ID is not of the form "<shard>.<bookingId>" or the shard has no such booking.
+    public ClusterBooking findBooking(String clusterBookingId) {
+        int dot = clusterBookingId == null ? -1 : clusterBookingId.indexOf('.');
+        HotelShard shard = dot < 0 ? null : shardsByName.get(clusterBookingId.substring(0, dot));
+        if (shard == null) {
+            return null;
+        }
+        Booking booking = shard.findBooking(clusterBookingId.substring(dot + 1));
+        return booking == null ? null : new ClusterBooking(shard.getName(), booking);
+    }
+
+    public ClusterBooking cancelBooking(String clusterBookingId) {
+        int dot = clusterBookingId == null ? -1 : clusterBookingId.indexOf('.');
+        HotelShard shard = dot < 0 ? null : shardsByName.get(clusterBookingId.substring(0, dot));
+        if (shard == null) {
+            throw new IllegalArgumentException("Error: Booking ID " + clusterBookingId + " not found for cancellation.");
+        }
+        return new ClusterBooking(shard.getName(), shard.cancelBooking(clusterBookingId.substring(dot + 1)));
+    }
+
+    // Stops the search threads; the shards themselves belong to the caller.
+    @Override
+    public void close() {
+        scatter.shutdown();
+    }
+
+    // A booking together with the shard that holds it.
+    public static final class ClusterBooking {
+        private final String shardName;
+        private final Booking booking;
+
+        ClusterBooking(String shardName, Booking booking) {
+            this.shardName = shardName;
+            this.booking = booking;
+        }
+
+        public String getClusterBookingId() { return shardName + "." + booking.getBookingId(); }
+        public String getShardName() { return shardName; }
+        public Booking getBooking() { return booking; }
+        @Override public String toString() { return getClusterBookingId() + " " + booking; }
+    }
+
+    // -------------- DEMO AND BENCHMARK --------------
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = HotelServer.parseOptions(args);
+        int shardCount = Integer.parseInt(options.getOrDefault("shards", "4"));
+        int roomsPerShard = Integer.parseInt(options.getOrDefault("rooms", "20000"));
+        int bookings = Integer.parseInt(options.getOrDefault("bookings", "20000"));
+        int searches = Integer.parseInt(options.getOrDefault("searches", "2000"));
+        int clients = Integer.parseInt(options.getOrDefault("clients", "64"));
+        boolean local = Boolean.parseBoolean(options.getOrDefault("local", "false"));
+
+        List<Process> children = Collections.synchronizedList(new ArrayList<>());
+        Thread reaper = new Thread(() -> children.forEach(Process::destroy));
+        Runtime.getRuntime().addShutdownHook(reaper);
+        long started = System.nanoTime();
+        try (HotelCluster cluster = new HotelCluster()) {
+            for (int s = 0; s < shardCount; s++) {
+                String name = "h" + s;
+                HotelShard shard;
+                if (local) {
+                    Hotel hotel = new Hotel();
+                    HotelServer.seedRooms(hotel, name + "-R", roomsPerShard);
+                    shard = new LocalHotelShard(name, hotel);
+                } else {
+                    shard = startShardProcess(name, roomsPerShard, children);
+                }
+                cluster.addShard(shard, name + "-");
+            }
+            System.out.printf("%d %s shards with %d rooms each ready in %.1fs.%n", shardCount, local ? "in-process" : "loopback",
+                    roomsPerShard, (System.nanoTime() - started) / 1e9);
+
+            ExecutorService pool = Executors.newFixedThreadPool(clients);
+            LatencyHistogram bookingLatency = new LatencyHistogram();
+            LongAdder conflicts = new LongAdder();
+            List<String> created = Collections.synchronizedList(new ArrayList<>());
+            LocalDate base = LocalDate.now().plusDays(1);
+            CountDownLatch booked = new CountDownLatch(bookings);
+            long start = System.nanoTime();
+            for (int i = 0; i < bookings; i++) {
+                int n = i;
+                pool.execute(() -> {
+                    Random random = new Random(n);
+                    String roomId = "h" + random.nextInt(shardCount) + "-R" + random.nextInt(roomsPerShard);
+                    LocalDate checkIn = base.plusDays(random.nextInt(365));
+                    long sent = System.nanoTime();
+                    try {
+                        created.add(cluster.createBooking("Guest " + n, "guest" + n + "@example.com", roomId, checkIn, checkIn.plusDays(1 + random.nextInt(4)))
+                                .getClusterBookingId());
+                    } catch (IllegalStateException e) {
+                        conflicts.increment();
+                    } finally {
+                        bookingLatency.record(System.nanoTime() - sent);
+                        booked.countDown();
+                    }
+                });
+            }
+            booked.await();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d bookings in %.2fs: %.0f/s, %d conflicts. Latency: %s%n", bookings, seconds, bookings / seconds, conflicts.sum(), bookingLatency);
+
+            LatencyHistogram searchLatency = new LatencyHistogram();
+            LongAdder found = new LongAdder();
+            CountDownLatch searched = new CountDownLatch(searches);
+            start = System.nanoTime();
+            for (int i = 0; i < searches; i++) {
+                int n = i;
+                pool.execute(() -> {
+                    Random random = new Random(-n - 1);
+                    LocalDate checkIn = base.plusDays(random.nextInt(365));
+                    long sent = System.nanoTime();
+                    try {
+                        found.add(cluster.findAvailableRooms(checkIn, checkIn.plusDays(1 + random.nextInt(4)), new RoomSearchFilter(null, 3, Double.MAX_VALUE)).size());
+                    } finally {
+                        searchLatency.record(System.nanoTime() - sent);
+                        searched.countDown();
+                    }
+                });
+            }
+            searched.await();
+            seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d scatter-gather searches in %.2fs: %.0f/s, %.0f rooms found on average. Latency: %s%n",
+                    searches, seconds, searches / seconds, (double) found.sum() / Math.max(1, searches), searchLatency);
+            pool.shutdown();
+
+            if (!created.isEmpty()) {
+                String sample = created.get(0);
+                System.out.println("Cancelled " + cluster.cancelBooking(sample));
+                if (cluster.findBooking(sample).getBooking().getStatus() != BookingStatus.CANCELLED) {
+                    throw new IllegalStateException("Cancellation of " + sample + " was not routed to its shard.");
+                }
+            }
+        } finally {
+            children.forEach(Process::destroy);
+            Runtime.getRuntime().removeShutdownHook(reaper);
+        }
+    }
+
+    // Starts an in-memory HotelServer with rooms "<name>-R0".. in a child JVM on a free port
+    // and returns a shard for it once it is listening.
+    private static RemoteHotelShard startShardProcess(String name, int rooms, List<Process> children) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), HotelServer.class.getName(),
+                "--port=0", "--data=memory", "--rooms=" + rooms, "--room-prefix=" + name + "-R")
+                .redirectErrorStream(true)
+                .start();
+        children.add(process);
+        BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = output.readLine()) != null && !line.startsWith(READY_LINE)) {
+            // the room log printed while seeding
+        }
+        if (line == null) {
+            throw new IOException("Shard " + name + " exited before it started listening.");
+        }
+        int port = Integer.parseInt(line.substring(READY_LINE.length(), line.indexOf(' ', READY_LINE.length())));
+        // keep reading the child's event log so it never blocks on a full pipe
+        Thread drain = new Thread(() -> {
+            try {
+                while (output.readLine() != null) {
+                    // discarded
+                }
+            } catch (IOException e) {
+                // child gone
+            }
+        }, "shard-" + name + "-output");
+        drain.setDaemon(true);
+        drain.start();
+        return new RemoteHotelShard(name, "http://127.0.0.1:" + port);
+    }
+}
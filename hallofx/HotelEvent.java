@@ -0,0 +1,101 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+// -------------- HOTEL DOMAIN EVENTS --------------
+// One event per state change of a Hotel, published through Hotel.getEvents(). Sequence
+// numbers are gap-free and follow the order the changes were made in: events about the
+// same room are numbered under that room's lock, so a booking's BookingCreated always
+// comes before its BookingCancelled, and events about the same RoomTypeBooking under
+// that booking's monitor.
+abstract class HotelEvent {
+    private long sequence;
+
+    public long getSequence() { return sequence; }
+    void setSequence(long sequence) { this.sequence = sequence; }
+
+    static final class RoomAdded extends HotelEvent {
+        private final ARoom room;
+
+        RoomAdded(ARoom room) { this.room = room; }
+
+        public ARoom getRoom() { return room; }
+        @Override public String toString() { return "#" + getSequence() + " RoomAdded " + room.getRoomId(); }
+    }
+
+    static final class RoomServiceChanged extends HotelEvent {
+        private final ARoom room;
+        private final boolean inService;
+
+        RoomServiceChanged(ARoom room, boolean inService) {
+            this.room = room;
+            this.inService = inService;
+        }
+
+        public ARoom getRoom() { return room; }
+        public boolean isInService() { return inService; }
+        @Override public String toString() { return "#" + getSequence() + " RoomServiceChanged " + room.getRoomId() + " inService=" + inService; }
+    }
+
+    static final class GuestRegistered extends HotelEvent {
+        private final Guest guest;
+
+        GuestRegistered(Guest guest) { this.guest = guest; }
+
+        public Guest getGuest() { return guest; }
+        @Override public String toString() { return "#" + getSequence() + " GuestRegistered " + guest.getGuestId(); }
+    }
+
+    static final class BookingCreated extends HotelEvent {
+        private final Booking booking;
+
+        BookingCreated(Booking booking) { this.booking = booking; }
+
+        public Booking getBooking() { return booking; }
+        @Override public String toString() { return "#" + getSequence() + " BookingCreated " + booking.getBookingId(); }
+    }
+
+    static final class BookingCancelled extends HotelEvent {
+        private final Booking booking;
+
+        BookingCancelled(Booking booking) { this.booking = booking; }
+
+        public Booking getBooking() { return booking; }
+        @Override public String toString() { return "#" + getSequence() + " BookingCancelled " + booking.getBookingId(); }
+    }
+
+    static final class RoomTypeBooked extends HotelEvent {
+        private final RoomTypeBooking typeBooking;
+
+        RoomTypeBooked(RoomTypeBooking typeBooking) { this.typeBooking = typeBooking; }
+
+        public RoomTypeBooking getTypeBooking() { return typeBooking; }
+        @Override public String toString() { return "#" + getSequence() + " RoomTypeBooked " + typeBooking.getTypeBookingId() + " " + typeBooking.getRoomType(); }
+    }
+
+    // Follows the BookingCreated of the assigned room's booking.
+    static final class RoomTypeAssigned extends HotelEvent {
+        private final RoomTypeBooking typeBooking;
+        private final Booking booking;
+
+        RoomTypeAssigned(RoomTypeBooking typeBooking, Booking booking) {
+            this.typeBooking = typeBooking;
+            this.booking = booking;
+        }
+
+        public RoomTypeBooking getTypeBooking() { return typeBooking; }
+        public Booking getBooking() { return booking; }
+        @Override public String toString() { return "#" + getSequence() + " RoomTypeAssigned " + typeBooking.getTypeBookingId() + " -> " + booking.getBookingId(); }
+    }
+
+    static final class RoomTypeCancelled extends HotelEvent {
+        private final RoomTypeBooking typeBooking;
+
+        RoomTypeCancelled(RoomTypeBooking typeBooking) { this.typeBooking = typeBooking; }
+
+        public RoomTypeBooking getTypeBooking() { return typeBooking; }
+        @Override public String toString() { return "#" + getSequence() + " RoomTypeCancelled " + typeBooking.getTypeBookingId(); }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// -------------- HOTEL EVENT PUBLISHER --------------
+// Flow.Publisher of HotelEvents over one bounded ring buffer shared by all subscribers.
+// publish() is lock-free and never waits for anybody: it claims a sequence number, stores
+// the event in its slot and marks the slot published. Each subscriber has its own cursor
+// and its own daemon thread that hands every run of published events it has demand for
+// to onNext in one go, and parks when it has caught up. A parked thread raises a flag
+// first, so producers only pay for unpark() when somebody is actually asleep.
+// A subscriber that falls more than the ring's capacity behind (slow, or not requesting)
+// would have its next events overwritten. Instead of stalling producers it gets
+// onError(IllegalStateException) and is dropped; it should re-read the Hotel state and
+// subscribe again.
+class HotelEventPublisher implements Flow.Publisher<HotelEvent> {
+    private final int mask;
+    private final HotelEvent[] ring;
+    private final AtomicLongArray published; // slot i holds seq + 1 once event seq is fully written
+    private final AtomicLong claimed = new AtomicLong();
+    private final List<RingSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicInteger threadNumber = new AtomicInteger();
+    private volatile boolean closed;
+
+    public HotelEventPublisher(int capacityPowerOfTwo) {
+        if (Integer.bitCount(capacityPowerOfTwo) != 1) {
+            throw new IllegalArgumentException("Event ring capacity must be a power of two.");
+        }
+        this.mask = capacityPowerOfTwo - 1;
+        this.ring = new HotelEvent[capacityPowerOfTwo];
+        this.published = new AtomicLongArray(capacityPowerOfTwo);
+    }
+
+    // Events published while nobody is subscribed are not kept.
+    void publish(HotelEvent event) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        long seq = claimed.getAndIncrement();
+        event.setSequence(seq + 1);
+        int slot = (int) (seq & mask);
+        ring[slot] = event;
+        // A full volatile write, not lazySet: it must not be reordered with the read of the
+        // parked flags below, or a drainer going to sleep could miss this event.
+        published.set(slot, seq + 1);
+        subscriptions.forEach(RingSubscription::wakeIfParked);
+    }
+
+    // Sequence number of the latest event published so far (0 before the first).
+    public long getLastSequence() { return claimed.get(); }
+
+    public int getSubscriberCount() { return subscriptions.size(); }
+
+    // New subscribers receive the events published after subscribe() returns.
+    @Override
+    public void subscribe(Flow.Subscriber<? super HotelEvent> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber cannot be null.");
+        }
+        RingSubscription subscription = new RingSubscription(subscriber, claimed.get());
+        Thread thread = new Thread(subscription, "hotel-events-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        subscription.thread = thread;
+        subscriptions.add(subscription);
+        thread.start();
+    }
+
+    // Delivers what is already published, then completes every subscriber.
+    public void close() {
+        closed = true;
+        for (RingSubscription subscription : subscriptions) {
+            LockSupport.unpark(subscription.thread);
+        }
+    }
+
+    private final class RingSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super HotelEvent> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private volatile boolean cancelled;
+        private volatile long badRequest; // non-positive request(n), reported as onError
+        private volatile Thread thread;
+        private volatile boolean parked; // drainer is (about to be) parked until unparked
+        private long next; // sequence (0-based) of the next event to deliver; drainer thread only
+
+        RingSubscription(Flow.Subscriber<? super HotelEvent> subscriber, long next) {
+            this.subscriber = subscriber;
+            this.next = next;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = n == 0 ? -1 : n;
+            } else {
+                demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            LockSupport.unpark(thread);
+        }
+
+        void wakeIfParked() {
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
+            try {
+                subscriber.onSubscribe(this);
+                drain();
+            } catch (RuntimeException e) {
+                // a throwing subscriber is cancelled (Reactive Streams rule 2.13)
+                cancelled = true;
+            } finally {
+                subscriptions.remove(this);
+            }
+        }
+
+        private void drain() {
+            while (!cancelled) {
+                if (badRequest != 0) {
+                    subscriber.onError(new IllegalArgumentException("request(n) needs n > 0 but was " + badRequest + "."));
+                    return;
+                }
+                long behind = claimed.get() - next;
+                if (behind > mask + 1) {
+                    subscriber.onError(new IllegalStateException("Subscriber fell " + behind + " events behind; events before #"
+                            + (claimed.get() - mask) + " were overwritten. Re-read the hotel state and subscribe again."));
+                    return;
+                }
+                long wanted = demand.get();
+                int delivered = 0;
+                while (delivered < wanted && !cancelled) {
+                    int slot = (int) (next & mask);
+                    if (published.get(slot) < next + 1) {
+                        break; // not published yet
+                    }
+                    HotelEvent event = ring[slot];
+                    if (event == null || event.getSequence() != next + 1) {
+                        break; // overwritten while we looked; reported as lag on the next pass
+                    }
+                    next++;
+                    delivered++;
+                    subscriber.onNext(event);
+                }
+                if (delivered > 0) {
+                    if (wanted != Long.MAX_VALUE) {
+                        demand.addAndGet(-delivered);
+                    }
+                    continue;
+                }
+                if (closed && claimed.get() == next) {
+                    if (!cancelled) {
+                        subscriber.onComplete();
+                    }
+                    return;
+                }
+                // Sleep until publish(), request(n), cancel() or close() unparks us. The flag is
+                // raised before the last look at the ring and publish() reads it after marking
+                // its slot, so at least one of the two sees the other. The other three always
+                // unpark, and an unpark that comes before park() is not lost.
+                parked = true;
+                if (wanted == 0 || published.get((int) (next & mask)) < next + 1) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,513 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+// -------------- WRITE-AHEAD JOURNAL --------------
+// Append-only binary log of Hotel mutations, split into numbered segment files
+// (journal-<n>.log). Each record is [int length][byte type][payload][int crc32], so a torn
+// write at the tail is detected and ignored on replay.
+//
+// Group commit: appends only copy the encoded record into an in-memory batch and return a
+// sequence number. A single flusher thread writes whole batches and fsyncs once per batch;
+// callers then wait in awaitDurable(seq) until their batch is on disk. Under bursts many
+// records share one fsync instead of paying one each.
+//
+// Write-ahead: Hotel appends a mutation's record and waits for it to be durable before it
+// changes anything in memory, between enter() and exit(). roll() waits for those to finish,
+// so a record never sits in a segment older than the snapshot that lacks its change.
+class HotelJournal implements Closeable {
+    static final byte ROOM_ADDED = 1;
+    static final byte ROOM_IN_SERVICE = 2;
+    static final byte GUEST_REGISTERED = 3;
+    static final byte BOOKING_CREATED = 4;
+    static final byte BOOKING_CANCELLED = 5;
+    static final byte BOOKINGS_CREATED = 6; // a whole batch in one record, so replay is all-or-nothing too
+    static final byte BOOKINGS_IMPORTED = 7; // like BOOKINGS_CREATED, but each booking carries its status
+    static final byte ROOM_TYPE_BOOKED = 8;
+    static final byte ROOM_TYPE_ASSIGNED = 9; // also creates the room's booking, in place of BOOKING_CREATED
+    static final byte ROOM_TYPE_CANCELLED = 10;
+    private static final int MAX_RECORD_BYTES = 1 << 26; // anything larger can only be a torn length field
+
+    private final Path directory;
+    private final Object lock = new Object();
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(256);
+    private final DataOutputStream record = new DataOutputStream(recordBuffer);
+    private final CRC32 crc = new CRC32();
+    private final Thread flusher;
+    private final ReentrantReadWriteLock rollGate = new ReentrantReadWriteLock(); // shared by mutations, exclusive for roll
+
+    // guarded by lock
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(1 << 16);
+    private long appendedSeq;
+    private long durableSeq;
+    private long segment;
+    private boolean rollRequested;
+    private boolean closed;
+    private IOException failure;
+
+    private FileChannel channel; // only touched by the flusher thread after construction
+
+    public HotelJournal(Path directory, long segment) throws IOException {
+        this.directory = directory;
+        this.segment = segment;
+        this.channel = openSegment(segment);
+        this.flusher = new Thread(this::flushLoop, "hotel-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    static Path segmentPath(Path directory, long segment) {
+        return directory.resolve("journal-" + segment + ".log");
+    }
+
+    public long logRoomAdded(ARoom room) {
+        synchronized (lock) {
+            try {
+                begin(ROOM_ADDED);
+                record.writeUTF(room.getRoomId());
+                record.writeByte(room.getRoomType().ordinal());
+                record.writeDouble(room.getPricePerNight());
+                record.writeInt(room.getCapacity());
+                record.writeBoolean(room.isInService());
+                return commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public long logRoomInService(String roomId, boolean inService) {
+        synchronized (lock) {
+            try {
+                begin(ROOM_IN_SERVICE);
+                record.writeUTF(roomId);
+                record.writeBoolean(inService);
+                return commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public long logGuestRegistered(Guest guest) {
+        synchronized (lock) {
+            try {
+                begin(GUEST_REGISTERED);
+                record.writeUTF(guest.getGuestId());
+                record.writeUTF(guest.getName());
+                record.writeUTF(guest.getEmail() == null ? "" : guest.getEmail());
+                return commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public long logBookingCreated(Booking booking) {
+        synchronized (lock) {
+            try {
+                begin(BOOKING_CREATED);
+                record.writeUTF(booking.getBookingId());
+                record.writeUTF(booking.getGuest().getGuestId());
+                record.writeUTF(booking.getRoom().getRoomId());
+                record.writeLong(booking.getCheckInDate().toEpochDay());
+                record.writeLong(booking.getCheckOutDate().toEpochDay());
+                return commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public long logBookingsCreated(List<Booking> batch) {
+        synchronized (lock) {
+            try {
+                begin(BOOKINGS_CREATED);
+                record.writeInt(batch.size());
+                for (Booking booking : batch) {
+                    record.writeUTF(booking.getBookingId());
+                    record.writeUTF(booking.getGuest().getGuestId());
+                    record.writeUTF(booking.getRoom().getRoomId());
+                    record.writeLong(booking.getCheckInDate().toEpochDay());
+                    record.writeLong(booking.getCheckOutDate().toEpochDay());
+                }
+                return commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public long logBookingsImported(List<Booking> batch) {
+        synchronized (lock) {
+            try {
+                begin(BOOKINGS_IMPORTED);
+                record.writeInt(batch.size());
+                for (Booking booking : batch) {
+                    record.writeUTF(booking.getBookingId());
+                    record.writeUTF(booking.getGuest().getGuestId());
+                    record.writeUTF(booking.getRoom().getRoomId());
+                    record.writeLong(booking.getCheckInDate().toEpochDay());
+                    record.writeLong(booking.getCheckOutDate().toEpochDay());
+                    record.writeByte(booking.getStatus().ordinal());
+                }
+                return commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public long logBookingCancelled(String bookingId) {
+        synchronized (lock) {
+            try {
+                begin(BOOKING_CANCELLED);
+                record.writeUTF(bookingId);
+                return commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public long logRoomTypeBooked(RoomTypeBooking typeBooking) {
+        synchronized (lock) {
+            try {
+                begin(ROOM_TYPE_BOOKED);
+                record.writeUTF(typeBooking.getTypeBookingId());
+                record.writeUTF(typeBooking.getGuest().getGuestId());
+                record.writeByte(typeBooking.getRoomType().ordinal());
+                record.writeLong(typeBooking.getCheckInDate().toEpochDay());
+                record.writeLong(typeBooking.getCheckOutDate().toEpochDay());
+                return commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public long logRoomTypeAssigned(RoomTypeBooking typeBooking, Booking booking) {
+        synchronized (lock) {
+            try {
+                begin(ROOM_TYPE_ASSIGNED);
+                record.writeUTF(typeBooking.getTypeBookingId());
+                record.writeUTF(booking.getBookingId());
+                record.writeUTF(booking.getRoom().getRoomId());
+                return commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public long logRoomTypeCancelled(String typeBookingId) {
+        synchronized (lock) {
+            try {
+                begin(ROOM_TYPE_CANCELLED);
+                record.writeUTF(typeBookingId);
+                return commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Blocks until every record up to seq has been written and fsynced.
+    public void awaitDurable(long seq) {
+        synchronized (lock) {
+            while (durableSeq < seq && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the journal.", e);
+                }
+            }
+            if (durableSeq < seq) {
+                throw new UncheckedIOException("Journal write failed.", failure);
+            }
+        }
+    }
+
+    // Brackets a mutation from its append until its change is applied. Take it before any
+    // of Hotel's own locks.
+    void enter() {
+        rollGate.readLock().lock();
+    }
+
+    void exit() {
+        rollGate.readLock().unlock();
+    }
+
+    // Starts a new segment after everything appended so far is durable and applied, and
+    // returns its number. Records appended from now on land in the new segment.
+    public long roll() {
+        rollGate.writeLock().lock();
+        try {
+            return rollLocked();
+        } finally {
+            rollGate.writeLock().unlock();
+        }
+    }
+
+    private long rollLocked() {
+        synchronized (lock) {
+            rollRequested = true;
+            lock.notifyAll();
+            while (rollRequested && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while rolling the journal.", e);
+                }
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Journal roll failed.", failure);
+            }
+            return segment;
+        }
+    }
+
+    public long getAppendedCount() {
+        synchronized (lock) {
+            return appendedSeq;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Caller must hold lock.
+    private void begin(byte type) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed.");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Journal is unusable after a write failure.", failure);
+        }
+        recordBuffer.reset();
+        record.writeByte(type);
+    }
+
+    // Caller must hold lock. Frames the record and adds it to the pending batch.
+    private long commit() throws IOException {
+        byte[] body = recordBuffer.toByteArray();
+        crc.reset();
+        crc.update(body, 0, body.length);
+        DataOutputStream out = new DataOutputStream(pending);
+        out.writeInt(body.length);
+        out.write(body);
+        out.writeInt((int) crc.getValue());
+        lock.notifyAll();
+        return ++appendedSeq;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            ByteArrayOutputStream batch;
+            long batchSeq;
+            boolean roll;
+            boolean stop;
+            synchronized (lock) {
+                while (pending.size() == 0 && !rollRequested && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                batch = pending;
+                batchSeq = appendedSeq;
+                roll = rollRequested;
+                stop = closed;
+                pending = new ByteArrayOutputStream(Math.max(1 << 16, batch.size()));
+            }
+            try {
+                if (batch.size() > 0) {
+                    ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(false);
+                }
+                if (roll) {
+                    channel.close();
+                    channel = openSegment(segment + 1);
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            synchronized (lock) {
+                durableSeq = batchSeq;
+                if (roll) {
+                    segment++;
+                    rollRequested = false;
+                }
+                lock.notifyAll();
+                if (stop && pending.size() == 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        Files.createDirectories(directory);
+        return FileChannel.open(segmentPath(directory, number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Applies every intact record of one segment to the hotel. Stops quietly at a torn or
+    // corrupt tail, which is what a crash in the middle of a batch write leaves behind.
+    // Returns the number of records applied.
+    static long replay(InputStream segmentStream, Hotel hotel) throws IOException {
+        DataInputStream in = new DataInputStream(segmentStream);
+        CRC32 check = new CRC32();
+        long applied = 0;
+        while (true) {
+            byte[] body;
+            try {
+                int length = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    return applied;
+                }
+                body = new byte[length];
+                in.readFully(body);
+                int expected = in.readInt();
+                check.reset();
+                check.update(body, 0, length);
+                if ((int) check.getValue() != expected) {
+                    return applied;
+                }
+            } catch (EOFException e) {
+                return applied;
+            }
+            apply(new DataInputStream(new ByteArrayInputStream(body)), hotel);
+            applied++;
+        }
+    }
+
+    private static void apply(DataInputStream in, Hotel hotel) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case ROOM_ADDED: {
+                String roomId = in.readUTF();
+                RoomType roomType = RoomType.values()[in.readByte()];
+                double price = in.readDouble();
+                int capacity = in.readInt();
+                boolean inService = in.readBoolean();
+                ARoom room = HotelStore.newRoom(roomType, roomId, price, capacity);
+                room.setInService(inService);
+                hotel.restoreRoom(room);
+                break;
+            }
+            case ROOM_IN_SERVICE:
+                hotel.restoreRoomInService(in.readUTF(), in.readBoolean());
+                break;
+            case GUEST_REGISTERED: {
+                String guestId = in.readUTF();
+                String name = in.readUTF();
+                String email = in.readUTF();
+                hotel.restoreGuest(guestId, name, email.isEmpty() ? null : email);
+                break;
+            }
+            case BOOKING_CREATED: {
+                String bookingId = in.readUTF();
+                String guestId = in.readUTF();
+                String roomId = in.readUTF();
+                LocalDate checkIn = LocalDate.ofEpochDay(in.readLong());
+                LocalDate checkOut = LocalDate.ofEpochDay(in.readLong());
+                hotel.restoreBooking(bookingId, guestId, roomId, checkIn, checkOut, BookingStatus.CONFIRMED);
+                break;
+            }
+            case BOOKINGS_CREATED: {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String bookingId = in.readUTF();
+                    String guestId = in.readUTF();
+                    String roomId = in.readUTF();
+                    LocalDate checkIn = LocalDate.ofEpochDay(in.readLong());
+                    LocalDate checkOut = LocalDate.ofEpochDay(in.readLong());
+                    hotel.restoreBooking(bookingId, guestId, roomId, checkIn, checkOut, BookingStatus.CONFIRMED);
+                }
+                break;
+            }
+            case BOOKINGS_IMPORTED: {
+                int count = in.readInt();
+                BookingStatus[] statuses = BookingStatus.values();
+                for (int i = 0; i < count; i++) {
+                    String bookingId = in.readUTF();
+                    String guestId = in.readUTF();
+                    String roomId = in.readUTF();
+                    LocalDate checkIn = LocalDate.ofEpochDay(in.readLong());
+                    LocalDate checkOut = LocalDate.ofEpochDay(in.readLong());
+                    hotel.restoreBooking(bookingId, guestId, roomId, checkIn, checkOut, statuses[in.readByte()]);
+                }
+                break;
+            }
+            case BOOKING_CANCELLED:
+                hotel.restoreCancellation(in.readUTF());
+                break;
+            case ROOM_TYPE_BOOKED: {
+                String typeBookingId = in.readUTF();
+                String guestId = in.readUTF();
+                RoomType roomType = RoomType.values()[in.readByte()];
+                LocalDate checkIn = LocalDate.ofEpochDay(in.readLong());
+                LocalDate checkOut = LocalDate.ofEpochDay(in.readLong());
+                hotel.restoreTypeBooking(typeBookingId, guestId, roomType, checkIn, checkOut, BookingStatus.CONFIRMED, null);
+                break;
+            }
+            case ROOM_TYPE_ASSIGNED: {
+                String typeBookingId = in.readUTF();
+                String bookingId = in.readUTF();
+                hotel.restoreTypeAssignment(typeBookingId, bookingId, in.readUTF());
+                break;
+            }
+            case ROOM_TYPE_CANCELLED:
+                hotel.restoreTypeCancellation(in.readUTF());
+                break;
+            default:
+                throw new IOException("Unknown journal record type " + type + ".");
+        }
+    }
+}
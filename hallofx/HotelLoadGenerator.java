@@ -0,0 +1,115 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// -------------- LOAD GENERATOR FOR HotelServer --------------
+// Fires a mix of booking, availability and lookup requests with up to --concurrency of
+// them outstanding at once (asynchronous, so thousands in flight need no thousands of
+// threads), then prints throughput, latency percentiles and the count per status code.
+// Without --url it starts an in-memory HotelServer on a free localhost port, seeds it with
+// --rooms rooms, and afterwards checks that no room was double-booked.
+//
+// Usage: java hallofx.HotelLoadGenerator [--url=http://localhost:8080] [--rooms=1000]
+//            [--requests=50000] [--concurrency=2000] [--days=365] [--max-in-flight=10000]
+public class HotelLoadGenerator {
+    private static final LocalDate BASE_DATE = LocalDate.now().plusDays(1); // past nights are closed once archived
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = HotelServer.parseOptions(args);
+        int rooms = Integer.parseInt(options.getOrDefault("rooms", "1000"));
+        int totalRequests = Integer.parseInt(options.getOrDefault("requests", "50000"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "2000"));
+        int days = Integer.parseInt(options.getOrDefault("days", "365"));
+
+        HotelServer embedded = null;
+        String url = options.get("url");
+        if (url == null) {
+            Hotel hotel = new Hotel();
+            HotelServer.seedRooms(hotel, rooms);
+            embedded = new HotelServer(hotel, 0, Integer.parseInt(options.getOrDefault("max-in-flight", String.valueOf(HotelServer.DEFAULT_MAX_IN_FLIGHT))));
+            embedded.start();
+            url = "http://localhost:" + embedded.getPort();
+            System.out.println("Started in-memory server at " + url + " with " + rooms + " rooms.");
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Semaphore outstanding = new Semaphore(concurrency);
+        LatencyHistogram latency = new LatencyHistogram();
+        Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+        LongAdder failures = new LongAdder();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < totalRequests; i++) {
+            outstanding.acquire();
+            HttpRequest request = nextRequest(url, i, rooms, days);
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                latency.record(System.nanoTime() - sent);
+                if (error != null) {
+                    failures.increment();
+                } else {
+                    statusCounts.computeIfAbsent(response.statusCode(), code -> new LongAdder()).increment();
+                }
+                outstanding.release();
+            });
+        }
+        outstanding.acquire(concurrency); // wait for the stragglers
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d requests in %.2fs: %.0f req/s, %d concurrent%n", totalRequests, seconds, totalRequests / seconds, concurrency);
+        System.out.println("Latency: " + latency);
+        Map<Integer, Long> byStatus = new TreeMap<>();
+        statusCounts.forEach((code, count) -> byStatus.put(code, count.sum()));
+        System.out.println("Responses by status: " + byStatus + (failures.sum() > 0 ? ", transport failures: " + failures.sum() : ""));
+
+        if (embedded != null) {
+            HotelBenchmark.verifyNoDoubleBookings(embedded.getHotel());
+            System.out.println("No double bookings among " + embedded.getHotel().getAllBookings().size() + " bookings.");
+            System.out.println(embedded.getHotel().getMetrics());
+            embedded.stop();
+        }
+    }
+
+    // 60% bookings, 25% availability checks, 10% booking lookups, 5% searches. Stays are 1-4
+    // nights in a window of the given number of days, so bookings contend for rooms.
+    private static HttpRequest nextRequest(String url, int i, int rooms, int days) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String roomId = "R" + random.nextInt(rooms);
+        LocalDate checkIn = BASE_DATE.plusDays(random.nextInt(days));
+        LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(4));
+        int pick = random.nextInt(100);
+        if (pick < 60) {
+            String body = "{\"name\": \"Load Guest " + (i % 1000) + "\", \"email\": \"guest" + (i % 1000) + "@example.com\", \"roomId\": \""
+                    + roomId + "\", \"checkIn\": \"" + checkIn + "\", \"checkOut\": \"" + checkOut + "\"}";
+            return HttpRequest.newBuilder(URI.create(url + "/bookings"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+        if (pick < 85) {
+            return HttpRequest.newBuilder(URI.create(url + "/rooms/" + roomId + "/availability?checkIn=" + checkIn + "&checkOut=" + checkOut)).GET().build();
+        }
+        if (pick < 95) {
+            return HttpRequest.newBuilder(URI.create(url + "/bookings/B" + (1 + random.nextInt(Math.max(1, i / 2 + 1))))).GET().build();
+        }
+        return HttpRequest.newBuilder(URI.create(url + "/rooms?checkIn=" + checkIn + "&checkOut=" + checkOut + "&minCapacity=3")).GET().build();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// -------------- HOTEL METRICS --------------
+// Counters and latency histograms for the Hotel hot paths. Recording is allocation-free
+// and lock-free (LongAdder cells), so it is safe to call on every availability check.
+// Latency is sampled: only one call in timingSampleEvery pays for the two System.nanoTime()
+// calls, and timing can be switched off entirely.
+class HotelMetrics {
+    final LongAdder availabilityChecks = new LongAdder();
+    final LongAdder availabilityConflicts = new LongAdder();
+    final LongAdder roomsOutOfService = new LongAdder();   // checks refused because the room is out of service
+    final LongAdder invalidRequests = new LongAdder();     // bad parameters or unknown rooms
+    final LongAdder bookingsCreated = new LongAdder();
+    final LongAdder bookingsRejected = new LongAdder();    // createBooking found the room taken
+    final LongAdder bookingsCancelled = new LongAdder();
+    final LongAdder guestsRegistered = new LongAdder();
+    final LongAdder roomsAdded = new LongAdder();
+    final LongAdder lookups = new LongAdder();             // findRoom / findBooking / findGuest calls
+
+    final LatencyHistogram availabilityLatency = new LatencyHistogram();
+    final LatencyHistogram bookingLatency = new LatencyHistogram();
+    final LatencyHistogram cancellationLatency = new LatencyHistogram();
+    final LatencyHistogram lookupLatency = new LatencyHistogram();
+
+    private volatile boolean timingEnabled = true;
+    private volatile int timingSampleMask = 15; // time one call in 16
+
+    public void setTimingEnabled(boolean timingEnabled) { this.timingEnabled = timingEnabled; }
+    public boolean isTimingEnabled() { return timingEnabled; }
+
+    // everyN must be a power of two; 1 times every call.
+    public void setTimingSampleEvery(int everyN) {
+        if (Integer.bitCount(everyN) != 1) {
+            throw new IllegalArgumentException("Sample interval must be a power of two.");
+        }
+        this.timingSampleMask = everyN - 1;
+    }
+
+    // Returns 0 when this call is not timed, which stopTimer then ignores.
+    long startTimer() {
+        if (!timingEnabled || (ThreadLocalRandom.current().nextInt() & timingSampleMask) != 0) {
+            return 0L;
+        }
+        return System.nanoTime();
+    }
+
+    void stopTimer(LatencyHistogram histogram, long startNanos) {
+        if (startNanos != 0L) {
+            histogram.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    public long getAvailabilityChecks() { return availabilityChecks.sum(); }
+    public long getAvailabilityConflicts() { return availabilityConflicts.sum(); }
+    public long getRoomsOutOfService() { return roomsOutOfService.sum(); }
+    public long getInvalidRequests() { return invalidRequests.sum(); }
+    public long getBookingsCreated() { return bookingsCreated.sum(); }
+    public long getBookingsRejected() { return bookingsRejected.sum(); }
+    public long getBookingsCancelled() { return bookingsCancelled.sum(); }
+    public long getGuestsRegistered() { return guestsRegistered.sum(); }
+    public long getRoomsAdded() { return roomsAdded.sum(); }
+    public long getLookups() { return lookups.sum(); }
+    public LatencyHistogram getAvailabilityLatency() { return availabilityLatency; }
+    public LatencyHistogram getBookingLatency() { return bookingLatency; }
+    public LatencyHistogram getCancellationLatency() { return cancellationLatency; }
+    public LatencyHistogram getLookupLatency() { return lookupLatency; }
+
+    @Override
+    public String toString() {
+        return "Availability checks: " + getAvailabilityChecks() + " (conflicts " + getAvailabilityConflicts()
+             + ", out of service " + getRoomsOutOfService() + ", invalid " + getInvalidRequests() + ")"
+             + "\nBookings: created " + getBookingsCreated() + ", rejected " + getBookingsRejected()
+             + ", cancelled " + getBookingsCancelled()
+             + "\nGuests registered: " + getGuestsRegistered() + ", rooms added: " + getRoomsAdded()
+             + ", lookups: " + getLookups()
+             + "\nAvailability latency: " + availabilityLatency
+             + "\nBooking latency: " + bookingLatency
+             + "\nCancellation latency: " + cancellationLatency
+             + "\nLookup latency: " + lookupLatency;
+    }
+}
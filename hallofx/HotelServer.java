@@ -0,0 +1,739 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// -------------- HEADLESS HTTP/JSON SERVER --------------
+// Serves a Hotel over HTTP on the JDK's built-in server, one request per (virtual, where
+// the JDK has them) thread:
+//   GET    /rooms?checkIn=&checkOut=&type=&minCapacity=&maxPrice=   available rooms (all rooms without dates)
+//   GET    /rooms?after=&limit=                                    page of all rooms by ID
+//   POST   /rooms  {"roomId", "type", "pricePerNight", "capacity"}
+//   GET    /rooms/{roomId}
+//   GET    /rooms/{roomId}/availability?checkIn=&checkOut=
+//   POST   /bookings  {"name", "email", "roomId", "checkIn", "checkOut"}
+//   GET    /bookings/{bookingId}
+//   DELETE /bookings/{bookingId}
+//   POST   /type-bookings  {"name", "email", "type", "checkIn", "checkOut"}   any room of the type, assigned later
+//   GET    /type-bookings/{typeBookingId}
+//   DELETE /type-bookings/{typeBookingId}
+//   POST   /type-bookings/{typeBookingId}/assign  [{"roomId"}]            best-fitting free room without roomId
+//   GET    /metrics
+//   GET    /analytics?from=&nights=                                 occupancy per type per night, ADR, RevPAR, cancellations
+// Backpressure: at most maxInFlight requests are queued or running; beyond that requests
+// are answered 503 with Retry-After right away instead of piling up.
+// Bad input is 400, unknown IDs 404, a room or room type that is already taken 409.
+//
+// Usage: java hallofx.HotelServer [--port=8080] [--data=hotel-data | --data=memory]
+//            [--rooms=N (seed N rooms into an empty hotel)] [--room-prefix=R] [--max-in-flight=10000]
+public class HotelServer {
+    public static final int DEFAULT_MAX_IN_FLIGHT = 10_000;
+    static final int MAX_NIGHTS = Hotel.MAX_STAY_NIGHTS; // longest stay or analytics series a request may ask for
+    private static final Pattern EDGE_SLASHES = Pattern.compile("^/+|/+$");
+
+    private final Hotel hotel;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder rejectedBusy = new LongAdder();   // 503s from backpressure
+    private final LongAdder clientErrors = new LongAdder();   // 4xx
+    private final LongAdder serverErrors = new LongAdder();   // 5xx other than backpressure
+    private final Map<String, LatencyHistogram> routeLatency = new LinkedHashMap<>();
+    private static final int ANALYTICS_DAYS_BACK = 365;
+    private static final int ANALYTICS_DAYS_AHEAD = 730;
+    private HotelAnalytics analytics; // created by the first /analytics request
+    private LocalDate analyticsFrom;  // first night analytics tracks
+
+    public HotelServer(Hotel hotel, int port, int maxInFlight) throws IOException {
+        if (hotel == null) {
+            throw new IllegalArgumentException("Hotel must be provided.");
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max in-flight requests must be positive.");
+        }
+        this.hotel = hotel;
+        this.maxInFlight = maxInFlight;
+        for (String route : new String[] {"searchRooms", "addRoom", "getRoom", "roomAvailability", "createBooking", "getBooking", "cancelBooking",
+                "bookRoomType", "getTypeBooking", "cancelTypeBooking", "assignRoom", "metrics", "analytics"}) {
+            routeLatency.put(route, new LatencyHistogram());
+        }
+        this.workers = newRequestExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.server.createContext("/", this::dispatch);
+        // Count a request as in flight from the moment it is handed to a worker, so requests
+        // waiting in a bounded pool's queue are limited too
+        this.server.setExecutor(task -> {
+            inFlight.incrementAndGet();
+            try {
+                workers.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.decrementAndGet();
+                throw e;
+            }
+        });
+    }
+
+    // Virtual thread per request on JDKs that have them (21+), looked up reflectively so
+    // this still compiles and runs on 17, where it falls back to a pool of platform threads.
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newFixedThreadPool(Math.max(64, 16 * Runtime.getRuntime().availableProcessors()), r -> {
+                Thread thread = new Thread(r, "hotel-http-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void start() { server.start(); }
+
+    public void stop() {
+        server.stop(1);
+        workers.shutdown();
+    }
+
+    public int getPort() { return server.getAddress().getPort(); }
+    public Hotel getHotel() { return hotel; }
+    public long getRequests() { return requests.sum(); }
+    public long getRejectedBusy() { return rejectedBusy.sum(); }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int port = Integer.parseInt(options.getOrDefault("port", "8080"));
+        String data = options.getOrDefault("data", "hotel-data");
+        HotelStore store = data.equals("memory") ? null : HotelStore.open(Paths.get(data));
+        Hotel hotel = store != null ? store.getHotel() : new Hotel();
+        hotel.getEventLog().enable(System.out, false);
+        int seedRooms = Integer.parseInt(options.getOrDefault("rooms", "0"));
+        if (hotel.getAllRooms().isEmpty()) {
+            seedRooms(hotel, options.getOrDefault("room-prefix", "R"), seedRooms);
+        }
+        HotelServer server = new HotelServer(hotel, port, Integer.parseInt(options.getOrDefault("max-in-flight", String.valueOf(DEFAULT_MAX_IN_FLIGHT))));
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            hotel.getEventLog().disable();
+            if (store != null) {
+                try {
+                    store.close();
+                } catch (IOException ex) {
+                    System.out.println("Error: Could not save hotel data: " + ex.getMessage());
+                }
+            }
+            stopped.countDown();
+        }));
+        server.start();
+        System.out.println("Hotel server listening on port " + server.getPort() + " with " + hotel.getAllRooms().size() + " rooms.");
+        stopped.await();
+    }
+
+    // Rooms R0..R(n-1), cycling through the room types.
+    static void seedRooms(Hotel hotel, int roomCount) {
+        seedRooms(hotel, "R", roomCount);
+    }
+
+    // Rooms <prefix>0..<prefix>(n-1), e.g. "lon-R0" for a shard of a cluster.
+    static void seedRooms(Hotel hotel, String prefix, int roomCount) {
+        RoomType[] types = RoomType.values();
+        for (int i = 0; i < roomCount; i++) {
+            RoomType type = types[i % types.length];
+            hotel.addRoom(HotelStore.newRoom(type, prefix + i, 100.0 + 50 * type.ordinal() + (i % 20), 1 + (i % 4)));
+        }
+    }
+
+    // -------------- REQUEST HANDLING --------------
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        requests.increment();
+        if (inFlight.get() > maxInFlight) {
+            rejectedBusy.increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            send(exchange, 503, "{\"error\": \"Server busy, retry later.\"}");
+            return;
+        }
+        String method = exchange.getRequestMethod();
+        String[] path = EDGE_SLASHES.matcher(exchange.getRequestURI().getPath()).replaceAll("").split("/");
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String route = null;
+        long start = System.nanoTime();
+        try {
+            if (path[0].equals("rooms") && path.length == 1 && method.equals("GET")) {
+                route = "searchRooms";
+                send(exchange, 200, searchRooms(query));
+            } else if (path[0].equals("rooms") && path.length == 1 && method.equals("POST")) {
+                route = "addRoom";
+                send(exchange, 201, addRoom(parseJsonObject(readBody(exchange))));
+            } else if (path[0].equals("rooms") && path.length == 2 && method.equals("GET")) {
+                route = "getRoom";
+                ARoom room = hotel.findRoom(path[1]);
+                if (room == null) {
+                    sendError(exchange, 404, "Room ID " + path[1] + " not found.");
+                } else {
+                    StringBuilder json = new StringBuilder(96);
+                    appendRoom(json, room);
+                    send(exchange, 200, json.toString());
+                }
+            } else if (path[0].equals("rooms") && path.length == 3 && path[2].equals("availability") && method.equals("GET")) {
+                route = "roomAvailability";
+                send(exchange, 200, roomAvailability(path[1], query));
+            } else if (path[0].equals("bookings") && path.length == 1 && method.equals("POST")) {
+                route = "createBooking";
+                send(exchange, 201, createBooking(parseJsonObject(readBody(exchange))));
+            } else if (path[0].equals("bookings") && path.length == 2 && method.equals("GET")) {
+                route = "getBooking";
+                Booking booking = hotel.findBooking(path[1]);
+                if (booking == null) {
+                    sendError(exchange, 404, "Booking ID " + path[1] + " not found.");
+                } else {
+                    send(exchange, 200, bookingJson(booking));
+                }
+            } else if (path[0].equals("bookings") && path.length == 2 && method.equals("DELETE")) {
+                route = "cancelBooking";
+                if (hotel.findBooking(path[1]) == null) {
+                    sendError(exchange, 404, "Booking ID " + path[1] + " not found.");
+                } else {
+                    hotel.cancelBooking(path[1]);
+                    send(exchange, 200, bookingJson(hotel.findBooking(path[1])));
+                }
+            } else if (path[0].equals("type-bookings") && path.length == 1 && method.equals("POST")) {
+                route = "bookRoomType";
+                send(exchange, 201, bookRoomType(parseJsonObject(readBody(exchange))));
+            } else if (path[0].equals("type-bookings") && path.length == 2 && method.equals("GET")) {
+                route = "getTypeBooking";
+                RoomTypeBooking typeBooking = hotel.findTypeBooking(path[1]);
+                if (typeBooking == null) {
+                    sendError(exchange, 404, "Type booking ID " + path[1] + " not found.");
+                } else {
+                    send(exchange, 200, typeBookingJson(typeBooking));
+                }
+            } else if (path[0].equals("type-bookings") && path.length == 2 && method.equals("DELETE")) {
+                route = "cancelTypeBooking";
+                if (hotel.findTypeBooking(path[1]) == null) {
+                    sendError(exchange, 404, "Type booking ID " + path[1] + " not found.");
+                } else {
+                    hotel.cancelTypeBooking(path[1]);
+                    send(exchange, 200, typeBookingJson(hotel.findTypeBooking(path[1])));
+                }
+            } else if (path[0].equals("type-bookings") && path.length == 3 && path[2].equals("assign") && method.equals("POST")) {
+                route = "assignRoom";
+                if (hotel.findTypeBooking(path[1]) == null) {
+                    sendError(exchange, 404, "Type booking ID " + path[1] + " not found.");
+                } else {
+                    String body = readBody(exchange);
+                    String roomId = body.isBlank() ? null : parseJsonObject(body).get("roomId");
+                    send(exchange, 201, bookingJson(hotel.assignRoom(path[1], roomId)));
+                }
+            } else if (path[0].equals("metrics") && path.length == 1 && method.equals("GET")) {
+                route = "metrics";
+                send(exchange, 200, metricsJson());
+            } else if (path[0].equals("analytics") && path.length == 1 && method.equals("GET")) {
+                route = "analytics";
+                send(exchange, 200, analyticsJson(query));
+            } else {
+                sendError(exchange, 404, "No route for " + method + " " + exchange.getRequestURI().getPath());
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (IllegalStateException e) {
+            sendError(exchange, 409, e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, e.toString());
+        } finally {
+            if (route != null) {
+                routeLatency.get(route).record(System.nanoTime() - start);
+            }
+            exchange.close();
+        }
+    }
+
+    private String searchRooms(Map<String, String> query) {
+        List<ARoom> rooms;
+        if (query.containsKey("checkIn") || query.containsKey("checkOut")) {
+            RoomType type = query.containsKey("type") ? parseRoomType(query.get("type")) : null;
+            int minCapacity = query.containsKey("minCapacity") ? parseInt("minCapacity", query.get("minCapacity")) : 0;
+            double maxPrice = query.containsKey("maxPrice") ? parseDouble("maxPrice", query.get("maxPrice")) : Double.MAX_VALUE;
+            LocalDate checkIn = parseDate("checkIn", query.get("checkIn"));
+            LocalDate checkOut = parseDate("checkOut", query.get("checkOut"));
+            checkStayLength(checkIn, checkOut);
+            rooms = hotel.findAvailableRooms(checkIn, checkOut, new RoomSearchFilter(type, minCapacity, maxPrice));
+        } else {
+            int limit = query.containsKey("limit") ? parseInt("limit", query.get("limit")) : Integer.MAX_VALUE;
+            rooms = hotel.getRoomsPage(query.get("after"), limit);
+        }
+        StringBuilder json = new StringBuilder(64 + 96 * rooms.size()).append("{\"rooms\": [");
+        for (int i = 0; i < rooms.size(); i++) {
+            if (i > 0) {
+                json.append(", ");
+            }
+            appendRoom(json, rooms.get(i));
+        }
+        return json.append("]}").toString();
+    }
+
+    private String addRoom(Map<String, String> body) {
+        String roomId = body.get("roomId");
+        if (roomId == null || roomId.isBlank() || body.get("type") == null) {
+            throw new IllegalArgumentException("roomId and type must be provided.");
+        }
+        ARoom room = HotelStore.newRoom(parseRoomType(body.get("type")), roomId,
+                parseDouble("pricePerNight", body.get("pricePerNight")), parseInt("capacity", body.get("capacity")));
+        if (hotel.findRoom(roomId) != null) {
+            throw new IllegalStateException("Room with ID " + roomId + " already exists.");
+        }
+        hotel.addRoom(room);
+        StringBuilder json = new StringBuilder(96);
+        appendRoom(json, room);
+        return json.toString();
+    }
+
+    private String roomAvailability(String roomId, Map<String, String> query) {
+        ARoom room = hotel.findRoom(roomId);
+        if (room == null) {
+            throw new IllegalArgumentException("Room ID " + roomId + " not found.");
+        }
+        LocalDate checkIn = parseDate("checkIn", query.get("checkIn"));
+        LocalDate checkOut = parseDate("checkOut", query.get("checkOut"));
+        checkStayLength(checkIn, checkOut);
+        boolean available = hotel.isRoomAvailable(room, checkIn, checkOut);
+        return "{\"roomId\": " + quote(roomId) + ", \"available\": " + available + "}";
+    }
+
+    // The request is checked before the guest is registered, so a bad one leaves no guest behind.
+    private String createBooking(Map<String, String> body) {
+        String roomId = body.get("roomId");
+        if (roomId == null) {
+            throw new IllegalArgumentException("roomId must be provided.");
+        }
+        LocalDate checkIn = parseDate("checkIn", body.get("checkIn"));
+        LocalDate checkOut = parseDate("checkOut", body.get("checkOut"));
+        checkStayDates(checkIn, checkOut);
+        if (hotel.findRoom(roomId) == null) {
+            throw new IllegalArgumentException("Booking failed: Room ID " + roomId + " not found.");
+        }
+        Guest guest = hotel.registerGuest(body.get("name"), body.get("email"));
+        return bookingJson(hotel.createBooking(guest, roomId, checkIn, checkOut));
+    }
+
+    private String bookRoomType(Map<String, String> body) {
+        if (body.get("type") == null) {
+            throw new IllegalArgumentException("type must be provided.");
+        }
+        RoomType type = parseRoomType(body.get("type"));
+        LocalDate checkIn = parseDate("checkIn", body.get("checkIn"));
+        LocalDate checkOut = parseDate("checkOut", body.get("checkOut"));
+        checkStayDates(checkIn, checkOut);
+        Guest guest = hotel.registerGuest(body.get("name"), body.get("email"));
+        return typeBookingJson(hotel.bookRoomType(guest, type, checkIn, checkOut));
+    }
+
+    private String metricsJson() {
+        HotelMetrics metrics = hotel.getMetrics();
+        StringBuilder json = new StringBuilder("{\"server\": {")
+                .append("\"requests\": ").append(requests.sum())
+                .append(", \"inFlight\": ").append(inFlight.get())
+                .append(", \"rejectedBusy\": ").append(rejectedBusy.sum())
+                .append(", \"clientErrors\": ").append(clientErrors.sum())
+                .append(", \"serverErrors\": ").append(serverErrors.sum())
+                .append(", \"latency\": {");
+        boolean first = true;
+        for (Map.Entry<String, LatencyHistogram> entry : routeLatency.entrySet()) {
+            json.append(first ? "" : ", ").append(quote(entry.getKey())).append(": ");
+            appendLatency(json, entry.getValue());
+            first = false;
+        }
+        json.append("}}, \"hotel\": {")
+                .append("\"availabilityChecks\": ").append(metrics.getAvailabilityChecks())
+                .append(", \"bookingsCreated\": ").append(metrics.getBookingsCreated())
+                .append(", \"bookingsRejected\": ").append(metrics.getBookingsRejected())
+                .append(", \"bookingsCancelled\": ").append(metrics.getBookingsCancelled())
+                .append(", \"guestsRegistered\": ").append(metrics.getGuestsRegistered())
+                .append(", \"bookingLatency\": ");
+        appendLatency(json, metrics.getBookingLatency());
+        return json.append("}}").toString();
+    }
+
+    // Occupancy series per room type from the given night (today by default), plus this
+    // month's ADR/RevPAR and the booking-level figures.
+    private String analyticsJson(Map<String, String> query) {
+        LocalDate from = query.containsKey("from") ? parseDate("from", query.get("from")) : LocalDate.now();
+        int nights = query.containsKey("nights") ? parseInt("nights", query.get("nights")) : 90;
+        if (nights <= 0 || nights > MAX_NIGHTS) {
+            throw new IllegalArgumentException("nights must be between 1 and " + MAX_NIGHTS + ".");
+        }
+        LocalDate today = LocalDate.now();
+        if (from.isBefore(today.minusDays(ANALYTICS_DAYS_BACK)) || from.toEpochDay() + nights > today.toEpochDay() + ANALYTICS_DAYS_AHEAD) {
+            throw new IllegalArgumentException("Analytics cover " + ANALYTICS_DAYS_BACK + " days back and " + ANALYTICS_DAYS_AHEAD
+                    + " days ahead of today; from and nights must stay within them.");
+        }
+        HotelAnalytics analytics = analytics(today);
+        YearMonth month = YearMonth.from(from);
+        StringBuilder json = new StringBuilder(256 + 32 * nights).append("{\"from\": ").append(quote(from.toString()))
+                .append(", \"occupancy\": {");
+        for (RoomType type : RoomType.values()) {
+            json.append(type.ordinal() == 0 ? "" : ", ").append(quote(type.name())).append(": [");
+            double[] series = analytics.getOccupancySeries(type, from, nights);
+            for (int i = 0; i < series.length; i++) {
+                json.append(i == 0 ? "" : ", ").append(String.format(Locale.ROOT, "%.4f", series[i]));
+            }
+            json.append(']');
+        }
+        json.append("}, \"month\": ").append(quote(month.toString()))
+                .append(", \"revenue\": ").append(analytics.getRevenue(null, month))
+                .append(", \"adr\": ").append(analytics.getAverageDailyRate(null, month))
+                .append(", \"revPar\": ").append(analytics.getRevPar(null, month))
+                .append(", \"bookingsCreated\": ").append(analytics.getBookingsCreated(null))
+                .append(", \"bookingsCancelled\": ").append(analytics.getBookingsCancelled(null))
+                .append(", \"cancellationRate\": ").append(String.format(Locale.ROOT, "%.4f", analytics.getCancellationRate(null)))
+                .append(", \"averageLengthOfStay\": ").append(String.format(Locale.ROOT, "%.2f", analytics.getAverageLengthOfStay()))
+                .append(", \"lengthOfStay\": [");
+        long[] stays = analytics.getLengthOfStayDistribution();
+        for (int n = 1; n < stays.length; n++) {
+            json.append(n == 1 ? "" : ", ").append(stays[n]);
+        }
+        return json.append("]}").toString();
+    }
+
+    // Built on first use so servers nobody asks for analytics don't pay for the event stream.
+    // Tracks a year back and two years ahead of today, so it is built again, once, on the
+    // first request of each new day.
+    private synchronized HotelAnalytics analytics(LocalDate today) {
+        LocalDate from = today.minusDays(ANALYTICS_DAYS_BACK);
+        if (analytics == null || !from.equals(analyticsFrom)) {
+            if (analytics != null) {
+                analytics.close();
+            }
+            analytics = new HotelAnalytics(hotel, from, ANALYTICS_DAYS_BACK + ANALYTICS_DAYS_AHEAD);
+            analyticsFrom = from;
+        }
+        return analytics;
+    }
+
+    // -------------- JSON --------------
+
+    private static void appendRoom(StringBuilder json, ARoom room) {
+        json.append("{\"roomId\": ").append(quote(room.getRoomId()))
+                .append(", \"type\": ").append(quote(room.getRoomType().name()))
+                .append(", \"pricePerNight\": ").append(String.format(Locale.ROOT, "%.2f", room.getPricePerNight()))
+                .append(", \"capacity\": ").append(room.getCapacity())
+                .append(", \"inService\": ").append(room.isInService()).append('}');
+    }
+
+    private static String bookingJson(Booking booking) {
+        return "{\"bookingId\": " + quote(booking.getBookingId())
+                + ", \"guestId\": " + quote(booking.getGuest().getGuestId())
+                + ", \"guestName\": " + quote(booking.getGuest().getName())
+                + ", \"roomId\": " + quote(booking.getRoom().getRoomId())
+                + ", \"checkIn\": " + quote(booking.getCheckInDate().toString())
+                + ", \"checkOut\": " + quote(booking.getCheckOutDate().toString())
+                + ", \"status\": " + quote(booking.getStatus().name()) + "}";
+    }
+
+    private static String typeBookingJson(RoomTypeBooking typeBooking) {
+        Booking assigned = typeBooking.getAssignedBooking();
+        return "{\"typeBookingId\": " + quote(typeBooking.getTypeBookingId())
+                + ", \"guestId\": " + quote(typeBooking.getGuest().getGuestId())
+                + ", \"guestName\": " + quote(typeBooking.getGuest().getName())
+                + ", \"type\": " + quote(typeBooking.getRoomType().name())
+                + ", \"checkIn\": " + quote(typeBooking.getCheckInDate().toString())
+                + ", \"checkOut\": " + quote(typeBooking.getCheckOutDate().toString())
+                + ", \"status\": " + quote(typeBooking.getStatus().name())
+                + ", \"booking\": " + (assigned == null ? "null" : bookingJson(assigned)) + "}";
+    }
+
+    private static void appendLatency(StringBuilder json, LatencyHistogram histogram) {
+        json.append(String.format(Locale.ROOT, "{\"count\": %d, \"meanNanos\": %.0f, \"p50Nanos\": %d, \"p99Nanos\": %d, \"p999Nanos\": %d}",
+                histogram.getCount(), histogram.getMeanNanos(), histogram.getPercentileNanos(50),
+                histogram.getPercentileNanos(99), histogram.getPercentileNanos(99.9)));
+    }
+
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    // Flat JSON object of string, number, boolean or null members, which is all the API takes.
+    static Map<String, String> parseJsonObject(String text) {
+        return parseJsonObject(text, new int[] {0});
+    }
+
+    // The flat objects of a response like {"rooms": [{...}, {...}]}, whatever its one member is called.
+    static List<Map<String, String>> parseJsonObjectList(String text) {
+        List<Map<String, String>> objects = new ArrayList<>();
+        int[] pos = {0};
+        expect(text, pos, '{');
+        parseJsonString(text, pos);
+        expect(text, pos, ':');
+        expect(text, pos, '[');
+        if (peek(text, pos) == ']') {
+            return objects;
+        }
+        while (true) {
+            objects.add(parseJsonObject(text, pos));
+            char next = peek(text, pos);
+            pos[0]++;
+            if (next == ']') {
+                return objects;
+            }
+            if (next != ',') {
+                throw new IllegalArgumentException("Malformed JSON: expected ',' or ']' at " + (pos[0] - 1) + ".");
+            }
+        }
+    }
+
+    private static Map<String, String> parseJsonObject(String text, int[] pos) {
+        Map<String, String> members = new LinkedHashMap<>();
+        pos[0] = skipSpace(text, pos[0]);
+        expect(text, pos, '{');
+        if (peek(text, pos) == '}') {
+            pos[0]++;
+            return members;
+        }
+        while (true) {
+            String key = parseJsonString(text, pos);
+            expect(text, pos, ':');
+            String value;
+            if (peek(text, pos) == '"') {
+                value = parseJsonString(text, pos);
+            } else {
+                int start = pos[0];
+                while (pos[0] < text.length() && ",} \t\r\n".indexOf(text.charAt(pos[0])) < 0) {
+                    pos[0]++;
+                }
+                value = text.substring(start, pos[0]);
+                if (value.isEmpty()) {
+                    throw new IllegalArgumentException("Malformed JSON: missing value for " + key + ".");
+                }
+                value = value.equals("null") ? null : value;
+            }
+            members.put(key, value);
+            char next = peek(text, pos);
+            pos[0]++;
+            if (next == '}') {
+                return members;
+            }
+            if (next != ',') {
+                throw new IllegalArgumentException("Malformed JSON: expected ',' or '}' at " + (pos[0] - 1) + ".");
+            }
+        }
+    }
+
+    private static String parseJsonString(String text, int[] pos) {
+        expect(text, pos, '"');
+        StringBuilder value = new StringBuilder();
+        while (pos[0] < text.length()) {
+            char c = text.charAt(pos[0]++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (pos[0] >= text.length()) {
+                break;
+            }
+            char escaped = text.charAt(pos[0]++);
+            switch (escaped) {
+                case 'n': value.append('\n'); break;
+                case 't': value.append('\t'); break;
+                case 'r': value.append('\r'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'u':
+                    if (pos[0] + 4 > text.length()) {
+                        throw new IllegalArgumentException("Malformed JSON: bad \\u escape.");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(pos[0], pos[0] + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Malformed JSON: bad \\u escape.", e);
+                    }
+                    pos[0] += 4;
+                    break;
+                default: value.append(escaped);
+            }
+        }
+        throw new IllegalArgumentException("Malformed JSON: unterminated string.");
+    }
+
+    private static void expect(String text, int[] pos, char wanted) {
+        if (peek(text, pos) != wanted) {
+            throw new IllegalArgumentException("Malformed JSON: expected '" + wanted + "' at " + pos[0] + ".");
+        }
+        pos[0]++;
+    }
+
+    // Skips whitespace and returns the next character, or 0 at the end.
+    private static char peek(String text, int[] pos) {
+        pos[0] = skipSpace(text, pos[0]);
+        return pos[0] < text.length() ? text.charAt(pos[0]) : 0;
+    }
+
+    private static int skipSpace(String text, int pos) {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    // -------------- HTTP HELPERS --------------
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (status >= 500) {
+            serverErrors.increment();
+        } else {
+            clientErrors.increment();
+        }
+        send(exchange, status, "{\"error\": " + quote(message) + "}");
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(1 << 16);
+            if (in.read() != -1) {
+                throw new IllegalArgumentException("Request body is too large.");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            query.put(key, eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static LocalDate parseDate(String name, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException(name + " must be provided.");
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be a date like 2025-06-01 but was " + value + ".", e);
+        }
+    }
+
+    // Everything the hotel checks about a stay's dates, so the route can answer 400 before it
+    // registers anybody.
+    private static void checkStayDates(LocalDate checkIn, LocalDate checkOut) {
+        if (!checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("Check-out date must be after check-in date.");
+        }
+        Hotel.checkStay("Stay", checkIn, checkOut);
+    }
+
+    // Searches cost time per night, so a stay of centuries is refused rather than scanned.
+    private static void checkStayLength(LocalDate checkIn, LocalDate checkOut) {
+        if (checkOut.isAfter(checkIn) && checkOut.toEpochDay() - checkIn.toEpochDay() > MAX_NIGHTS) {
+            throw new IllegalArgumentException("A stay cannot be longer than " + MAX_NIGHTS + " nights.");
+        }
+    }
+
+    private static RoomType parseRoomType(String value) {
+        try {
+            return RoomType.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown room type " + value + ".", e);
+        }
+    }
+
+    private static int parseInt(String name, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException(name + " must be provided.");
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number but was " + value + ".", e);
+        }
+    }
+
+    private static double parseDouble(String name, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException(name + " must be provided.");
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number but was " + value + ".", e);
+        }
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// -------------- HOTEL SHARD --------------
+// One partition of a HotelCluster: a Hotel in this JVM (LocalHotelShard) or in another
+// process behind a HotelServer (RemoteHotelShard). Errors follow Hotel: bad input or an
+// unknown ID is an IllegalArgumentException, a room that is already taken an
+// IllegalStateException.
+interface HotelShard {
+    String getName();
+
+    // Rejects a room ID the shard already has.
+    void addRoom(ARoom room);
+
+    ARoom findRoom(String roomId); // null if the shard has no such room
+
+    List<ARoom> findAvailableRooms(LocalDate checkIn, LocalDate checkOut, RoomSearchFilter filter);
+
+    // Registers the guest on this shard (or finds them by email) and books the room.
+    Booking createBooking(String guestName, String email, String roomId, LocalDate checkIn, LocalDate checkOut);
+
+    Booking findBooking(String bookingId); // null if the shard has no such booking
+
+    // Returns the booking as it is after the cancellation.
+    Booking cancelBooking(String bookingId);
+}
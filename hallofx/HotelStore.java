@@ -0,0 +1,314 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// -------------- DURABLE HOTEL STORE --------------
+// Owns a data directory holding snapshot-<k>.bin files and journal-<n>.log segments.
+// A snapshot numbered k contains the full state as of the moment journal segment k was
+// started, so recovery loads the newest snapshot and replays only segments >= k.
+//
+// Snapshots are taken while bookings continue ("fuzzy"): the journal is rolled first, then
+// state is copied. Anything the copy already contains is skipped on replay because the
+// Hotel.restore* methods are idempotent.
+// archive.bin is the hotel's booking archive: about once an hour cancelled bookings and
+// stays that have checked out are moved there, so snapshots and the heap only carry live ones.
+class HotelStore implements Closeable {
+    private static final int SNAPSHOT_MAGIC = 0x484F5453; // "HOTS"
+    private static final int SNAPSHOT_VERSION = 2; // 2 added type bookings; version 1 is still read
+    public static final long DEFAULT_SNAPSHOT_EVERY_RECORDS = 100_000;
+    public static final Duration DEFAULT_SNAPSHOT_CHECK_INTERVAL = Duration.ofSeconds(30);
+    public static final Duration ARCHIVE_INTERVAL = Duration.ofHours(1);
+
+    private final Path directory;
+    private final FileLock directoryLock;
+    private final Hotel hotel;
+    private final HotelJournal journal;
+    private final MappedBookingStore archive;
+    private final long snapshotEveryRecords;
+    private final ScheduledExecutorService scheduler;
+    private long recordsAtLastSnapshot;
+
+    private HotelStore(Path directory, FileLock directoryLock, Hotel hotel, HotelJournal journal, MappedBookingStore archive,
+                       long snapshotEveryRecords, Duration checkInterval) {
+        this.directory = directory;
+        this.directoryLock = directoryLock;
+        this.hotel = hotel;
+        this.journal = journal;
+        this.archive = archive;
+        this.snapshotEveryRecords = snapshotEveryRecords;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hotel-snapshotter");
+            t.setDaemon(true);
+            return t;
+        });
+        long millis = checkInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::snapshotIfDue, millis, millis, TimeUnit.MILLISECONDS);
+        this.scheduler.scheduleWithFixedDelay(this::archiveFinished, 0, ARCHIVE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public static HotelStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SNAPSHOT_EVERY_RECORDS, DEFAULT_SNAPSHOT_CHECK_INTERVAL);
+    }
+
+    // Recovers the hotel from the directory (empty if there is nothing yet) and starts
+    // journaling every further mutation into a fresh segment.
+    public static HotelStore open(Path directory, long snapshotEveryRecords, Duration checkInterval) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel lockChannel = FileChannel.open(directory.resolve("store.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock directoryLock = lockChannel.tryLock();
+        if (directoryLock == null) {
+            lockChannel.close();
+            throw new IOException("Hotel data directory " + directory + " is already in use.");
+        }
+        MappedBookingStore archive = null;
+        try {
+            Hotel hotel = new Hotel();
+            archive = new MappedBookingStore(directory.resolve("archive.bin"), hotel);
+            hotel.attachArchive(archive);
+            long snapshotSegment = latestNumber(directory, "snapshot-", ".bin");
+            if (snapshotSegment >= 0) {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(snapshotPath(directory, snapshotSegment)), 1 << 20)) {
+                    readSnapshot(new DataInputStream(in), hotel);
+                }
+            }
+            long lastSegment = Math.max(snapshotSegment, 0);
+            for (long segment : numbers(directory, "journal-", ".log")) {
+                if (segment >= snapshotSegment) {
+                    try (InputStream in = new BufferedInputStream(Files.newInputStream(HotelJournal.segmentPath(directory, segment)), 1 << 20)) {
+                        HotelJournal.replay(in, hotel);
+                    }
+                }
+                lastSegment = Math.max(lastSegment, segment);
+            }
+            // Never append behind a possibly torn tail: always continue in a new segment.
+            HotelJournal journal = new HotelJournal(directory, lastSegment + 1);
+            hotel.attachJournal(journal);
+            return new HotelStore(directory, directoryLock, hotel, journal, archive, snapshotEveryRecords, checkInterval);
+        } catch (IOException | RuntimeException e) {
+            if (archive != null) {
+                archive.close();
+            }
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    public Hotel getHotel() { return hotel; }
+
+    // Writes a compact snapshot and deletes the journal segments and snapshots it supersedes.
+    public synchronized void snapshot() throws IOException {
+        recordsAtLastSnapshot = journal.getAppendedCount();
+        long segment = journal.roll();
+        // Bookings are copied before rooms and guests so every booking's room and guest is
+        // guaranteed to be in the snapshot too. A type booking assigned after the bookings
+        // were copied is restored unassigned; its ROOM_TYPE_ASSIGNED record is in the new
+        // segment and replays the assignment.
+        List<Booking> bookings = hotel.getAllBookings();
+        List<RoomTypeBooking> typeBookings = hotel.getAllTypeBookings();
+        List<Guest> guests = hotel.getAllGuests();
+        List<ARoom> rooms = hotel.getAllRooms();
+
+        Path target = snapshotPath(directory, segment);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 20))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(segment);
+            out.writeInt(rooms.size());
+            for (ARoom room : rooms) {
+                out.writeUTF(room.getRoomId());
+                out.writeByte(room.getRoomType().ordinal());
+                out.writeDouble(room.getPricePerNight());
+                out.writeInt(room.getCapacity());
+                out.writeBoolean(room.isInService());
+            }
+            out.writeInt(guests.size());
+            for (Guest guest : guests) {
+                out.writeUTF(guest.getGuestId());
+                out.writeUTF(guest.getName());
+                out.writeUTF(guest.getEmail() == null ? "" : guest.getEmail());
+            }
+            out.writeInt(bookings.size());
+            for (Booking booking : bookings) {
+                out.writeUTF(booking.getBookingId());
+                out.writeUTF(booking.getGuest().getGuestId());
+                out.writeUTF(booking.getRoom().getRoomId());
+                out.writeLong(booking.getCheckInDate().toEpochDay());
+                out.writeLong(booking.getCheckOutDate().toEpochDay());
+                out.writeByte(booking.getStatus().ordinal());
+            }
+            out.writeInt(typeBookings.size());
+            for (RoomTypeBooking typeBooking : typeBookings) {
+                Booking assigned = typeBooking.getAssignedBooking();
+                out.writeUTF(typeBooking.getTypeBookingId());
+                out.writeUTF(typeBooking.getGuest().getGuestId());
+                out.writeByte(typeBooking.getRoomType().ordinal());
+                out.writeLong(typeBooking.getCheckInDate().toEpochDay());
+                out.writeLong(typeBooking.getCheckOutDate().toEpochDay());
+                out.writeByte(typeBooking.getStatus().ordinal());
+                out.writeUTF(assigned == null ? "" : assigned.getBookingId());
+            }
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        for (long old : numbers(directory, "journal-", ".log")) {
+            if (old < segment) {
+                Files.deleteIfExists(HotelJournal.segmentPath(directory, old));
+            }
+        }
+        for (long old : numbers(directory, "snapshot-", ".bin")) {
+            if (old < segment) {
+                Files.deleteIfExists(snapshotPath(directory, old));
+            }
+        }
+    }
+
+    private void snapshotIfDue() {
+        try {
+            if (journal.getAppendedCount() - recordsAtLastSnapshot >= snapshotEveryRecords) {
+                snapshot();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Error: Snapshot failed: " + e.getMessage());
+        }
+    }
+
+    // Archives the bookings that were cancelled or have checked out by today.
+    private synchronized void archiveFinished() {
+        try {
+            hotel.archiveBookings(LocalDate.now());
+        } catch (UncheckedIOException e) {
+            System.out.println("Error: Archiving bookings failed: " + e.getMessage());
+        }
+    }
+
+    // Takes a final snapshot so the next start replays nothing, then closes the journal.
+    @Override
+    public synchronized void close() throws IOException {
+        scheduler.shutdownNow();
+        try {
+            if (journal.getAppendedCount() > recordsAtLastSnapshot) {
+                snapshot();
+            }
+        } finally {
+            hotel.attachJournal(null);
+            journal.close();
+            archive.close();
+            directoryLock.channel().close();
+        }
+    }
+
+    static ARoom newRoom(RoomType roomType, String roomId, double pricePerNight, int capacity) {
+        switch (roomType) {
+            case STANDARD: return new StandardRoom(roomId, pricePerNight, capacity);
+            case DELUXE: return new DeluxeRoom(roomId, pricePerNight, capacity);
+            case SUITE: return new SuiteRoom(roomId, pricePerNight, capacity);
+            default: throw new IllegalArgumentException("Unknown room type " + roomType + ".");
+        }
+    }
+
+    private static void readSnapshot(DataInputStream in, Hotel hotel) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a hotel snapshot or unsupported snapshot version.");
+        }
+        int version = in.readInt();
+        if (version < 1 || version > SNAPSHOT_VERSION) {
+            throw new IOException("Not a hotel snapshot or unsupported snapshot version.");
+        }
+        in.readLong(); // segment number, already known from the file name
+        int roomCount = in.readInt();
+        for (int i = 0; i < roomCount; i++) {
+            String roomId = in.readUTF();
+            RoomType roomType = RoomType.values()[in.readByte()];
+            ARoom room = newRoom(roomType, roomId, in.readDouble(), in.readInt());
+            room.setInService(in.readBoolean());
+            hotel.restoreRoom(room);
+        }
+        int guestCount = in.readInt();
+        for (int i = 0; i < guestCount; i++) {
+            String guestId = in.readUTF();
+            String name = in.readUTF();
+            String email = in.readUTF();
+            hotel.restoreGuest(guestId, name, email.isEmpty() ? null : email);
+        }
+        int bookingCount = in.readInt();
+        List<Booking> bookings = new ArrayList<>(bookingCount);
+        for (int i = 0; i < bookingCount; i++) {
+            String bookingId = in.readUTF();
+            String guestId = in.readUTF();
+            String roomId = in.readUTF();
+            LocalDate checkIn = LocalDate.ofEpochDay(in.readLong());
+            LocalDate checkOut = LocalDate.ofEpochDay(in.readLong());
+            BookingStatus status = BookingStatus.values()[in.readByte()];
+            bookings.add(hotel.recoveredBooking(bookingId, guestId, roomId, checkIn, checkOut, status));
+        }
+        hotel.restoreBookings(bookings);
+        int typeBookingCount = version >= 2 ? in.readInt() : 0;
+        for (int i = 0; i < typeBookingCount; i++) {
+            String typeBookingId = in.readUTF();
+            String guestId = in.readUTF();
+            RoomType roomType = RoomType.values()[in.readByte()];
+            LocalDate checkIn = LocalDate.ofEpochDay(in.readLong());
+            LocalDate checkOut = LocalDate.ofEpochDay(in.readLong());
+            BookingStatus status = BookingStatus.values()[in.readByte()];
+            String assignedBookingId = in.readUTF();
+            hotel.restoreTypeBooking(typeBookingId, guestId, roomType, checkIn, checkOut, status, assignedBookingId.isEmpty() ? null : assignedBookingId);
+        }
+    }
+
+    private static Path snapshotPath(Path directory, long segment) {
+        return directory.resolve("snapshot-" + segment + ".bin");
+    }
+
+    private static long latestNumber(Path directory, String prefix, String suffix) throws IOException {
+        List<Long> found = numbers(directory, prefix, suffix);
+        return found.isEmpty() ? -1 : found.get(found.size() - 1);
+    }
+
+    // Sorted numbers n of the files named <prefix><n><suffix> in the directory.
+    private static List<Long> numbers(Path directory, String prefix, String suffix) throws IOException {
+        List<Long> found = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(p -> p.getFileName().toString())
+                 .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                 .forEach(name -> {
+                     try {
+                         found.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                     } catch (NumberFormatException ignored) {
+                         // not one of ours
+                     }
+                 });
+        }
+        found.sort(null);
+        return found;
+    }
+}
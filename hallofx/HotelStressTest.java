@@ -0,0 +1,119 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// -------------- CONCURRENT BOOKING STRESS TEST --------------
+// Many threads book, batch-book and cancel overlapping stays on a handful of rooms at once,
+// so nearly every attempt races another for the same room nights. Afterwards it checks
+// that no room holds two overlapping confirmed stays and that every night's free-room
+// count agrees with the confirmed bookings, then prints what happened. Exits with an
+// exception if either check fails.
+//
+// Usage: java hallofx.HotelStressTest [--rooms=4] [--threads=8] [--attempts=20000 (per thread)]
+//            [--days=60 (window the stays fall in)] [--cancel=0.2 (share of attempts that cancel)]
+public class HotelStressTest {
+    private static final LocalDate BASE_DATE = LocalDate.of(2030, 1, 1);
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = HotelServer.parseOptions(args);
+        int roomCount = Integer.parseInt(options.getOrDefault("rooms", "4"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        int attempts = Integer.parseInt(options.getOrDefault("attempts", "20000"));
+        int days = Integer.parseInt(options.getOrDefault("days", "60"));
+        double cancelShare = Double.parseDouble(options.getOrDefault("cancel", "0.2"));
+
+        Hotel hotel = new Hotel();
+        for (int i = 0; i < roomCount; i++) {
+            hotel.addRoom(new StandardRoom("R" + i, 100.0, 2));
+        }
+        Guest guest = hotel.registerGuest("Stress Guest", "stress@example.com");
+
+        AtomicLong booked = new AtomicLong();
+        AtomicLong batches = new AtomicLong();
+        AtomicLong refused = new AtomicLong();
+        AtomicLong cancelled = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<Booking> mine = new ArrayList<>();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < attempts; i++) {
+                    LocalDate checkIn = BASE_DATE.plusDays(random.nextInt(days));
+                    LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(4));
+                    try {
+                        if (!mine.isEmpty() && random.nextDouble() < cancelShare) {
+                            hotel.cancelBooking(mine.remove(random.nextInt(mine.size())).getBookingId());
+                            cancelled.incrementAndGet();
+                        } else if (roomCount > 1 && random.nextInt(10) == 0) {
+                            // two rooms at once, all or nothing, locked in room order
+                            int first = random.nextInt(roomCount);
+                            int second = (first + 1 + random.nextInt(roomCount - 1)) % roomCount;
+                            mine.addAll(hotel.createBookings(List.of(
+                                    new BookingRequest(guest, "R" + first, checkIn, checkOut),
+                                    new BookingRequest(guest, "R" + second, checkIn, checkOut))));
+                            batches.incrementAndGet();
+                        } else {
+                            mine.add(hotel.createBooking(guest, "R" + random.nextInt(roomCount), checkIn, checkOut));
+                            booked.incrementAndGet();
+                        }
+                    } catch (IllegalStateException taken) {
+                        refused.incrementAndGet(); // expected under contention
+                    }
+                }
+            }, "stress-" + t);
+            worker.start();
+            workers.add(worker);
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+
+        HotelBenchmark.verifyNoDoubleBookings(hotel);
+        int nightsChecked = verifyFreeRoomCounts(hotel, roomCount, days + 5);
+        long confirmed = hotel.getAllBookings().stream().filter(b -> b.getStatus() == BookingStatus.CONFIRMED).count();
+        System.out.printf("%d threads on %d rooms: %d bookings, %d two-room batches, %d refused, %d cancelled in %.2f s%n",
+                threads, roomCount, booked.get(), batches.get(), refused.get(), cancelled.get(), seconds);
+        System.out.println(confirmed + " confirmed stays, no double bookings, free-room counts match on " + nightsChecked + " nights.");
+    }
+
+    // For each night of the window, the rooms the hotel offers must be exactly the rooms no
+    // confirmed stay covers. Returns the number of nights checked.
+    private static int verifyFreeRoomCounts(Hotel hotel, int roomCount, int nights) {
+        int[] occupied = new int[nights];
+        for (Booking booking : hotel.getAllBookings()) {
+            if (booking.getStatus() == BookingStatus.CONFIRMED) {
+                for (LocalDate day = booking.getCheckInDate(); day.isBefore(booking.getCheckOutDate()); day = day.plusDays(1)) {
+                    occupied[(int) (day.toEpochDay() - BASE_DATE.toEpochDay())]++;
+                }
+            }
+        }
+        for (int night = 0; night < nights; night++) {
+            LocalDate day = BASE_DATE.plusDays(night);
+            int free = hotel.findAvailableRooms(day, day.plusDays(1), RoomSearchFilter.ANY).size();
+            if (free != roomCount - occupied[night]) {
+                throw new IllegalStateException("Night " + day + ": hotel offers " + free + " rooms but bookings leave "
+                        + (roomCount - occupied[night]) + " free.");
+            }
+        }
+        return nights;
+    }
+}
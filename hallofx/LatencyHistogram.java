@@ -0,0 +1,70 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+// -------------- LATENCY HISTOGRAM --------------
+// Power-of-two buckets: bucket b counts samples in [2^(b-1), 2^b) nanoseconds, so 64
+// buckets cover every long. Percentiles are reported as the upper bound of their bucket
+// (at most 2x off), which is plenty to spot regressions and tail latency.
+class LatencyHistogram {
+    private final LongAdder[] buckets = new LongAdder[64];
+    private final LongAdder totalNanos = new LongAdder();
+
+    LatencyHistogram() {
+        for (int b = 0; b < buckets.length; b++) {
+            buckets[b] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        buckets[Math.min(63, 64 - Long.numberOfLeadingZeros(value))].increment();
+        totalNanos.add(value);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) totalNanos.sum() / count;
+    }
+
+    // Upper bound, in nanoseconds, of the bucket holding the given percentile (0-100).
+    public long getPercentileNanos(double percentile) {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int b = 0; b < buckets.length; b++) {
+            counts[b] = buckets[b].sum();
+            total += counts[b];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                return b == 0 ? 0 : (b >= 63 ? Long.MAX_VALUE : (1L << b) - 1);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "n=%d mean=%.0fns p50<=%dns p99<=%dns p99.9<=%dns",
+                getCount(), getMeanNanos(), getPercentileNanos(50), getPercentileNanos(99), getPercentileNanos(99.9));
+    }
+}
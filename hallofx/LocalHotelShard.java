@@ -0,0 +1,58 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// -------------- LOCAL HOTEL SHARD --------------
+// A cluster shard backed by a Hotel in this JVM; results are the Hotel's live objects.
+class LocalHotelShard implements HotelShard {
+    private final String name;
+    private final Hotel hotel;
+
+    public LocalHotelShard(String name, Hotel hotel) {
+        if (hotel == null) {
+            throw new IllegalArgumentException("Hotel must be provided.");
+        }
+        this.name = name;
+        this.hotel = hotel;
+    }
+
+    public Hotel getHotel() { return hotel; }
+
+    @Override public String getName() { return name; }
+
+    @Override
+    public void addRoom(ARoom room) {
+        if (room == null || room.getRoomId() == null) {
+            throw new IllegalArgumentException("Room or Room ID cannot be null.");
+        }
+        if (hotel.findRoom(room.getRoomId()) != null) {
+            throw new IllegalStateException("Room with ID " + room.getRoomId() + " already exists.");
+        }
+        hotel.addRoom(room);
+    }
+
+    @Override public ARoom findRoom(String roomId) { return hotel.findRoom(roomId); }
+
+    @Override
+    public List<ARoom> findAvailableRooms(LocalDate checkIn, LocalDate checkOut, RoomSearchFilter filter) {
+        return hotel.findAvailableRooms(checkIn, checkOut, filter);
+    }
+
+    @Override
+    public Booking createBooking(String guestName, String email, String roomId, LocalDate checkIn, LocalDate checkOut) {
+        return hotel.createBooking(hotel.registerGuest(guestName, email), roomId, checkIn, checkOut);
+    }
+
+    @Override public Booking findBooking(String bookingId) { return hotel.findBooking(bookingId); }
+
+    @Override
+    public Booking cancelBooking(String bookingId) {
+        hotel.cancelBooking(bookingId);
+        return hotel.findBooking(bookingId);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// -------------- MEMORY-MAPPED COLUMNAR BOOKING STORE --------------
+// Keeps booking history off the Java heap in a memory-mapped file of fixed-width rows:
+//   booking number (int, the n of "Bn"), room index (int), guest number (int, the n of "Gn"),
+//   check-in and check-out as epoch days (int), status (byte) = 21 bytes per booking.
+// The file is a 4 KB header followed by blocks of BLOCK_ROWS rows. Inside a block each
+// field is stored as its own contiguous column, so a scan over, say, check-in dates reads
+// sequential memory. Rooms and guests are resolved through the owning Hotel, so room
+// indices must be stable across restarts (they are: rooms are recovered in insertion order).
+// Rows can also be found by booking number through an in-memory index (4 bytes per booking
+// number), rebuilt by one scan when the file is opened.
+//
+// Appends are serialized; reads of rows below size() need no locking.
+class MappedBookingStore implements Closeable {
+    static final int BLOCK_ROWS = 1 << 16;
+    private static final int HEADER_BYTES = 4096;
+    private static final int MAGIC = 0x484F5442; // "HOTB"
+    private static final int VERSION = 1;
+
+    // column offsets within a block
+    private static final int BOOKING_NO = 0;
+    private static final int ROOM_INDEX = 4 * BLOCK_ROWS;
+    private static final int GUEST_NO = 8 * BLOCK_ROWS;
+    private static final int CHECK_IN = 12 * BLOCK_ROWS;
+    private static final int CHECK_OUT = 16 * BLOCK_ROWS;
+    private static final int STATUS = 20 * BLOCK_ROWS;
+    private static final int BLOCK_BYTES = 21 * BLOCK_ROWS;
+    private static final int INDEX_CHUNK_BITS = 12;
+    private static final int INDEX_CHUNK_MASK = (1 << INDEX_CHUNK_BITS) - 1;
+
+    // Receives one row at a time as primitives, so a full-history scan allocates nothing.
+    interface RowVisitor {
+        void visit(long row, int bookingNo, int roomIndex, int guestNo, int checkInDay, int checkOutDay, BookingStatus status);
+    }
+
+    private final Hotel hotel;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private volatile MappedByteBuffer[] blocks;
+    private volatile long size;
+    private volatile int[][] rowIndex = new int[16][]; // booking number -> row + 1, in chunks of 4,096
+
+    public MappedBookingStore(Path file, Hotel hotel) throws IOException {
+        this.hotel = hotel;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean fresh = channel.size() == 0;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        if (fresh) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putLong(8, 0L);
+            header.putLong(16, Long.MIN_VALUE);
+        } else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not a booking store or unsupported version: " + file);
+        }
+        long rows = header.getLong(8);
+        int blockCount = (int) ((rows + BLOCK_ROWS - 1) / BLOCK_ROWS);
+        MappedByteBuffer[] mapped = new MappedByteBuffer[blockCount];
+        for (int b = 0; b < blockCount; b++) {
+            mapped[b] = mapBlock(b);
+        }
+        this.blocks = mapped;
+        this.size = rows;
+        scan((row, bookingNo, roomIndex, guestNo, checkInDay, checkOutDay, status) -> index(bookingNo, row));
+    }
+
+    public long size() { return size; }
+
+    // Free-form epoch day kept in the header for the owner (Hotel: the archive horizon).
+    public long getMarkDay() { return header.getLong(16); }
+    public synchronized void setMarkDay(long epochDay) { header.putLong(16, epochDay); }
+
+    // Appends the booking and returns its row number.
+    public synchronized long append(Booking booking) throws IOException {
+        int roomIndex = hotel.roomIndexOf(booking.getRoom().getRoomId());
+        if (roomIndex < 0) {
+            throw new IllegalArgumentException("Room " + booking.getRoom().getRoomId() + " is not part of this hotel.");
+        }
+        long row = size;
+        int block = (int) (row / BLOCK_ROWS);
+        if (block == blocks.length) {
+            MappedByteBuffer[] grown = new MappedByteBuffer[block + 1];
+            System.arraycopy(blocks, 0, grown, 0, blocks.length);
+            grown[block] = mapBlock(block);
+            blocks = grown;
+        }
+        MappedByteBuffer buffer = blocks[block];
+        int slot = (int) (row % BLOCK_ROWS);
+        buffer.putInt(BOOKING_NO + 4 * slot, booking.getHandle());
+        buffer.putInt(ROOM_INDEX + 4 * slot, roomIndex);
+        buffer.putInt(GUEST_NO + 4 * slot, booking.getGuest().getHandle());
+        buffer.putInt(CHECK_IN + 4 * slot, (int) booking.getCheckInDate().toEpochDay());
+        buffer.putInt(CHECK_OUT + 4 * slot, (int) booking.getCheckOutDate().toEpochDay());
+        buffer.put(STATUS + slot, (byte) booking.getStatus().ordinal());
+        size = row + 1;
+        header.putLong(8, size);
+        index(booking.getHandle(), row);
+        return row;
+    }
+
+    // The row stored for the booking number, or null if there is none.
+    public Booking find(int bookingNo) {
+        int[][] chunks = rowIndex;
+        int chunk = bookingNo >>> INDEX_CHUNK_BITS;
+        if (bookingNo < 0 || chunk >= chunks.length || chunks[chunk] == null) {
+            return null;
+        }
+        int rowPlusOne = chunks[chunk][bookingNo & INDEX_CHUNK_MASK];
+        return rowPlusOne == 0 ? null : new BookingRow(rowPlusOne - 1);
+    }
+
+    // A Booking view over one row; nothing is copied until a getter is called.
+    public Booking get(long row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return new BookingRow(row);
+    }
+
+    // Visits every row in order, reading straight from the mapped columns.
+    public void scan(RowVisitor visitor) {
+        long rows = size;
+        MappedByteBuffer[] mapped = blocks;
+        BookingStatus[] statuses = BookingStatus.values();
+        for (int b = 0; (long) b * BLOCK_ROWS < rows; b++) {
+            MappedByteBuffer buffer = mapped[b];
+            int inBlock = (int) Math.min(BLOCK_ROWS, rows - (long) b * BLOCK_ROWS);
+            for (int slot = 0; slot < inBlock; slot++) {
+                visitor.visit((long) b * BLOCK_ROWS + slot,
+                        buffer.getInt(BOOKING_NO + 4 * slot),
+                        buffer.getInt(ROOM_INDEX + 4 * slot),
+                        buffer.getInt(GUEST_NO + 4 * slot),
+                        buffer.getInt(CHECK_IN + 4 * slot),
+                        buffer.getInt(CHECK_OUT + 4 * slot),
+                        statuses[buffer.get(STATUS + slot)]);
+            }
+        }
+    }
+
+    // Forces written rows to disk.
+    public synchronized void force() {
+        for (MappedByteBuffer block : blocks) {
+            block.force();
+        }
+        header.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    // Called from the constructor and from append, so never concurrently.
+    private void index(int bookingNo, long row) {
+        if (row >= Integer.MAX_VALUE) {
+            throw new IllegalStateException("Booking store is limited to " + (Integer.MAX_VALUE - 1) + " rows.");
+        }
+        int[][] chunks = rowIndex;
+        int chunk = bookingNo >>> INDEX_CHUNK_BITS;
+        if (chunk >= chunks.length) {
+            chunks = Arrays.copyOf(chunks, Math.max(chunk + 1, chunks.length * 2));
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new int[1 << INDEX_CHUNK_BITS];
+        }
+        chunks[chunk][bookingNo & INDEX_CHUNK_MASK] = (int) row + 1;
+        rowIndex = chunks; // volatile write publishes the entry
+    }
+
+    private MappedByteBuffer mapBlock(int block) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + (long) block * BLOCK_BYTES, BLOCK_BYTES);
+    }
+
+    private MappedByteBuffer blockOf(long row) { return blocks[(int) (row / BLOCK_ROWS)]; }
+    private static int slotOf(long row) { return (int) (row % BLOCK_ROWS); }
+
+    // -------------- FLYWEIGHT BOOKING VIEW --------------
+    private class BookingRow extends Booking {
+        private final long row;
+
+        BookingRow(long row) {
+            this.row = row;
+        }
+
+        private int intAt(int column) { return blockOf(row).getInt(column + 4 * slotOf(row)); }
+
+        @Override int getHandle() { return intAt(BOOKING_NO); }
+        @Override public Guest getGuest() { return hotel.findGuest(intAt(GUEST_NO)); }
+        @Override public ARoom getRoom() { return hotel.roomAt(intAt(ROOM_INDEX)); }
+        @Override public LocalDate getCheckInDate() { return LocalDate.ofEpochDay(intAt(CHECK_IN)); }
+        @Override public LocalDate getCheckOutDate() { return LocalDate.ofEpochDay(intAt(CHECK_OUT)); }
+        @Override public BookingStatus getStatus() { return BookingStatus.values()[blockOf(row).get(STATUS + slotOf(row))]; }
+        @Override public void setBookingStatus(BookingStatus status) { blockOf(row).put(STATUS + slotOf(row), (byte) status.ordinal()); }
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// -------------- OCCUPANCY CALENDAR --------------
+// Dense bitmap of room index x night for the whole inventory. Each night is a long[] with
+// one bit per room (bit set = occupied), stored in an array indexed by days since
+// originDay, so 2 years of 5,000 rooms is 730 rows of 79 words (~460 KB). Rows are
+// allocated on first write; a missing or short row means "all free".
+// Only nights in [FIRST_DAY, END_DAY) can be marked, so the day array never grows past
+// about 400,000 rows however far apart the stays are.
+// Per-type and in-service room masks let counts and searches run on whole words.
+class OccupancyCalendar {
+    static final long FIRST_DAY = LocalDate.of(1900, 1, 1).toEpochDay();
+    static final long END_DAY = LocalDate.of(3000, 1, 1).toEpochDay();
+
+    private long[][] days = new long[0][];
+    private long originDay;
+    private int roomCount;
+    private long[] inServiceMask = new long[0];
+    private final Map<RoomType, long[]> typeMasks = new EnumMap<>(RoomType.class);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void addRoom(int roomIndex, RoomType roomType, boolean inService) {
+        lock.writeLock().lock();
+        try {
+            roomCount = Math.max(roomCount, roomIndex + 1);
+            long[] typeMask = ensureLength(typeMasks.get(roomType), wordsFor(roomCount));
+            typeMask[wordOf(roomIndex)] |= bitOf(roomIndex);
+            typeMasks.put(roomType, typeMask);
+            inServiceMask = ensureLength(inServiceMask, wordsFor(roomCount));
+            setBit(inServiceMask, roomIndex, inService);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void setInService(int roomIndex, boolean inService) {
+        lock.writeLock().lock();
+        try {
+            setBit(inServiceMask, roomIndex, inService);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void markOccupied(int roomIndex, LocalDate checkIn, LocalDate checkOut) {
+        lock.writeLock().lock();
+        try {
+            long first = checkIn.toEpochDay();
+            long last = checkOut.toEpochDay();
+            ensureHorizon(first, last);
+            for (long day = first; day < last; day++) {
+                int row = (int) (day - originDay);
+                days[row] = ensureLength(days[row], wordsFor(roomCount));
+                days[row][wordOf(roomIndex)] |= bitOf(roomIndex);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // markOccupied for many stays at once (stay i: room roomIndexes[i], nights
+    // [checkInDays[i], checkOutDays[i]) as epoch days), under one lock and one horizon change.
+    public void markAllOccupied(int count, int[] roomIndexes, long[] checkInDays, long[] checkOutDays) {
+        if (count == 0) {
+            return;
+        }
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            first = Math.min(first, checkInDays[i]);
+            last = Math.max(last, checkOutDays[i]);
+        }
+        lock.writeLock().lock();
+        try {
+            ensureHorizon(first, last);
+            int words = wordsFor(roomCount);
+            for (int i = 0; i < count; i++) {
+                int word = wordOf(roomIndexes[i]);
+                long bit = bitOf(roomIndexes[i]);
+                for (long day = checkInDays[i]; day < checkOutDays[i]; day++) {
+                    int row = (int) (day - originDay);
+                    long[] bits = days[row];
+                    if (bits == null || bits.length < words) {
+                        bits = days[row] = ensureLength(bits, words);
+                    }
+                    bits[word] |= bit;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void markFree(int roomIndex, LocalDate checkIn, LocalDate checkOut) {
+        lock.writeLock().lock();
+        try {
+            long end = Math.min(checkOut.toEpochDay(), originDay + days.length);
+            for (long day = Math.max(checkIn.toEpochDay(), originDay); day < end; day++) {
+                long[] words = days[(int) (day - originDay)];
+                if (words != null && words.length > wordOf(roomIndex)) {
+                    words[wordOf(roomIndex)] &= ~bitOf(roomIndex);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // True if the room is not occupied on any night in [checkIn, checkOut).
+    public boolean isRoomFree(int roomIndex, LocalDate checkIn, LocalDate checkOut) {
+        int word = wordOf(roomIndex);
+        long bit = bitOf(roomIndex);
+        lock.readLock().lock();
+        try {
+            long end = Math.min(checkOut.toEpochDay(), originDay + days.length);
+            for (long day = Math.max(checkIn.toEpochDay(), originDay); day < end; day++) {
+                long[] words = days[(int) (day - originDay)];
+                if (words != null && words.length > word && (words[word] & bit) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Number of in-service rooms of the given type (null = all types), booked or not.
+    public int countInService(RoomType roomType) {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (long word : inServiceRooms(roomType)) {
+                count += Long.bitCount(word);
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Number of in-service rooms of the given type (null = all types) free on the night of day.
+    public int countFree(RoomType roomType, LocalDate day) {
+        lock.readLock().lock();
+        try {
+            long[] candidates = inServiceRooms(roomType);
+            long[] words = row(day.toEpochDay());
+            int free = 0;
+            for (int w = 0; w < candidates.length; w++) {
+                long occupied = words != null && w < words.length ? words[w] : 0L;
+                free += Long.bitCount(candidates[w] & ~occupied);
+            }
+            return free;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Share (0..1) of the in-service rooms of the type (null = any type) occupied on the night
+    // of the given date; 0 when there are none.
+    public double occupancyRate(RoomType roomType, LocalDate day) {
+        lock.readLock().lock();
+        try {
+            long[] candidates = inServiceRooms(roomType);
+            long[] words = row(day.toEpochDay());
+            int total = 0;
+            int occupied = 0;
+            for (int w = 0; w < candidates.length; w++) {
+                total += Long.bitCount(candidates[w]);
+                if (words != null && w < words.length) {
+                    occupied += Long.bitCount(candidates[w] & words[w]);
+                }
+            }
+            return total == 0 ? 0 : (double) occupied / total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bitset of in-service rooms of the given type (null = all types) free for every night
+    // in [checkIn, checkOut). The returned array is a fresh copy owned by the caller.
+    public long[] findFree(RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        lock.readLock().lock();
+        try {
+            long[] candidates = inServiceRooms(roomType);
+            // Nights outside the horizon have no rows (all free), so only the overlap is scanned.
+            long end = Math.min(checkOut.toEpochDay(), originDay + days.length);
+            for (long day = Math.max(checkIn.toEpochDay(), originDay); day < end; day++) {
+                long[] words = days[(int) (day - originDay)];
+                if (words == null) {
+                    continue;
+                }
+                int n = Math.min(words.length, candidates.length);
+                for (int w = 0; w < n; w++) {
+                    candidates[w] &= ~words[w];
+                }
+            }
+            return candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Drops every night before the given day, e.g. once those nights are in the past.
+    public void trimBefore(LocalDate day) {
+        lock.writeLock().lock();
+        try {
+            long cut = day.toEpochDay() - originDay;
+            if (cut <= 0) {
+                return;
+            }
+            long[][] kept = new long[(int) Math.max(0, days.length - cut)][];
+            if (kept.length > 0) {
+                System.arraycopy(days, (int) cut, kept, 0, kept.length);
+            }
+            days = kept;
+            originDay = day.toEpochDay();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 16L + 8L * days.length;
+            for (long[] words : days) {
+                if (words != null) {
+                    bytes += 16L + 8L * words.length;
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller must hold the lock.
+    private long[] inServiceRooms(RoomType roomType) {
+        long[] candidates = new long[wordsFor(roomCount)];
+        System.arraycopy(inServiceMask, 0, candidates, 0, Math.min(inServiceMask.length, candidates.length));
+        if (roomType != null) {
+            long[] typeMask = typeMasks.get(roomType);
+            for (int w = 0; w < candidates.length; w++) {
+                candidates[w] &= typeMask != null && w < typeMask.length ? typeMask[w] : 0L;
+            }
+        }
+        return candidates;
+    }
+
+    // Caller must hold the lock.
+    private long[] row(long epochDay) {
+        long offset = epochDay - originDay;
+        if (offset < 0 || offset >= days.length) {
+            return null;
+        }
+        return days[(int) offset];
+    }
+
+    // True if every night of [first, last) (epoch days) is one the calendar can hold.
+    static boolean covers(long first, long last) {
+        return first >= FIRST_DAY && last <= END_DAY;
+    }
+
+    // Caller must hold the write lock. Widens the day array to cover [first, last).
+    private void ensureHorizon(long first, long last) {
+        if (!covers(first, last)) {
+            throw new IllegalArgumentException("Nights " + LocalDate.ofEpochDay(first) + " to " + LocalDate.ofEpochDay(last)
+                    + " are outside the calendar's range.");
+        }
+        if (days.length == 0) {
+            originDay = first;
+        }
+        long newOrigin = Math.min(originDay, first);
+        long newEnd = Math.max(originDay + days.length, last);
+        if (newOrigin == originDay && newEnd == originDay + days.length) {
+            return;
+        }
+        // Grow by at least half again so a rolling horizon does not copy on every booking.
+        long length = Math.max(newEnd - newOrigin, days.length + (days.length >> 1));
+        if (newOrigin < originDay) {
+            newOrigin = newEnd - length;
+        }
+        long[][] grown = new long[(int) length][];
+        System.arraycopy(days, 0, grown, (int) (originDay - newOrigin), days.length);
+        days = grown;
+        originDay = newOrigin;
+    }
+
+    static int wordOf(int roomIndex) { return roomIndex >>> 6; }
+    static long bitOf(int roomIndex) { return 1L << (roomIndex & 63); }
+    static int wordsFor(int roomCount) { return (roomCount + 63) >>> 6; }
+
+    private static void setBit(long[] words, int roomIndex, boolean value) {
+        if (value) {
+            words[wordOf(roomIndex)] |= bitOf(roomIndex);
+        } else {
+            words[wordOf(roomIndex)] &= ~bitOf(roomIndex);
+        }
+    }
+
+    private static long[] ensureLength(long[] words, int length) {
+        if (words != null && words.length >= length) {
+            return words;
+        }
+        long[] grown = new long[Math.max(length, words == null ? 0 : words.length * 2)];
+        if (words != null) {
+            System.arraycopy(words, 0, grown, 0, words.length);
+        }
+        return grown;
+    }
+}
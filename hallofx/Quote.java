@@ -0,0 +1,41 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+// -------------- QUOTE --------------
+// Price of one stay. room is null for a quote by RoomType.
+class Quote {
+    private final ARoom room;
+    private final RoomType roomType;
+    private final LocalDate checkInDate;
+    private final LocalDate checkOutDate;
+    private final BigDecimal total;
+
+    public Quote(ARoom room, RoomType roomType, LocalDate checkInDate, LocalDate checkOutDate, BigDecimal total) {
+        this.room = room;
+        this.roomType = roomType;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+        this.total = total;
+    }
+
+    public ARoom getRoom() { return room; }
+    public RoomType getRoomType() { return roomType; }
+    public LocalDate getCheckInDate() { return checkInDate; }
+    public LocalDate getCheckOutDate() { return checkOutDate; }
+    public BigDecimal getTotal() { return total; }
+    public long getNights() { return checkOutDate.toEpochDay() - checkInDate.toEpochDay(); }
+    public BigDecimal getAverageNightlyRate() { return total.divide(BigDecimal.valueOf(getNights()), 2, RoundingMode.HALF_EVEN); }
+
+    @Override
+    public String toString() {
+        return (room != null ? "Room " + room.getRoomId() : roomType.toString()) + ", " + checkInDate + " to " + checkOutDate
+                + " (" + getNights() + " nights): $" + total;
+    }
+}
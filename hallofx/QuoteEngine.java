@@ -0,0 +1,382 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+
+// -------------- QUOTE ENGINE --------------
+// Prices stays from per-night rate rules. A night's rate is the room's base price times a
+// factor, and the factor is 1.00 plus the adjustments that apply to the night:
+// - the season covering it (later seasons win where they overlap),
+// - the weekend adjustment, for Friday and Saturday nights,
+// - the occupancy surcharge of the highest tier the room's type has reached that night.
+// For example, a 1.20 season on a weekend night with a 1.10 weekend rate gives 1.30.
+//
+// rebuild() turns the rules into one prefix-sum array per RoomType, indexed by epoch day
+// across the horizon. Factors are whole basis points and money is whole cents, so a quote
+// is two array reads and one rounding (half-even, once per stay). Nights outside the
+// horizon are priced night by night with the same rules and live occupancy; a stay may
+// be at most horizonDays nights long.
+// Once occupancy tiers are configured, the engine follows the hotel's events: a booking,
+// cancellation or room change marks the tables stale and the next quote rebuilds them.
+// Built without a start date, the horizon starts today and moves on at the first quote of
+// each new day.
+class QuoteEngine {
+    private static final long ONE = 10_000; // basis points in a factor of 1.00
+
+    private final Hotel hotel;
+    private final int horizonDays;
+    private final boolean followsToday;
+    private LocalDate horizonStart; // guarded by this
+    private final List<Season> seasons = new ArrayList<>(); // guarded by this
+    private final Map<RoomType, Long> weekendAdjustments = new EnumMap<>(RoomType.class); // guarded by this
+    private final List<OccupancyTier> occupancyTiers = new ArrayList<>(); // guarded by this, by threshold
+    private volatile Tables tables;
+    private volatile boolean stale; // occupancy changed since the tables were built
+    private EventSubscriber subscriber; // guarded by this; null once closed
+
+    public QuoteEngine(Hotel hotel, LocalDate horizonStart, int horizonDays) {
+        this(hotel, horizonStart, horizonDays, false);
+    }
+
+    // The horizon starts today and follows the date.
+    public QuoteEngine(Hotel hotel, int horizonDays) {
+        this(hotel, LocalDate.now(), horizonDays, true);
+    }
+
+    private QuoteEngine(Hotel hotel, LocalDate horizonStart, int horizonDays, boolean followsToday) {
+        if (hotel == null || horizonStart == null) {
+            throw new IllegalArgumentException("Hotel and horizon start must be provided.");
+        }
+        if (horizonDays <= 0) {
+            throw new IllegalArgumentException("Horizon must be at least one day.");
+        }
+        this.hotel = hotel;
+        this.horizonStart = horizonStart;
+        this.horizonDays = horizonDays;
+        this.followsToday = followsToday;
+        synchronized (this) {
+            subscribe();
+            rebuild();
+        }
+    }
+
+    // Stops following the hotel's events; quotes keep the occupancy of the last rebuild.
+    public synchronized void close() {
+        if (subscriber != null) {
+            subscriber.cancel();
+            subscriber = null;
+        }
+    }
+
+    // -------------- RULES --------------
+    // Each change rebuilds the tables. roomType null means every type.
+
+    public synchronized void addSeason(RoomType roomType, LocalDate from, LocalDate toInclusive, BigDecimal multiplier) {
+        if (from == null || toInclusive == null || toInclusive.isBefore(from)) {
+            throw new IllegalArgumentException("Season must end on or after its start date.");
+        }
+        seasons.add(new Season(roomType, from.toEpochDay(), toInclusive.toEpochDay(), adjustmentOf(multiplier)));
+        rebuild();
+    }
+
+    public synchronized void setWeekendMultiplier(RoomType roomType, BigDecimal multiplier) {
+        long adjustment = adjustmentOf(multiplier);
+        for (RoomType type : RoomType.values()) {
+            if (roomType == null || roomType == type) {
+                weekendAdjustments.put(type, adjustment);
+            }
+        }
+        rebuild();
+    }
+
+    // From the night the type's occupancy reaches minOccupancy (0..1), multiply by surchargeMultiplier.
+    public synchronized void addOccupancySurcharge(double minOccupancy, BigDecimal surchargeMultiplier) {
+        if (!(minOccupancy > 0 && minOccupancy <= 1)) {
+            throw new IllegalArgumentException("Occupancy threshold must be above 0 and at most 1.");
+        }
+        occupancyTiers.add(new OccupancyTier(minOccupancy, adjustmentOf(surchargeMultiplier)));
+        occupancyTiers.sort((a, b) -> Double.compare(a.minOccupancy, b.minOccupancy));
+        rebuild();
+    }
+
+    // Moves the horizon (e.g. daily, so it keeps starting today) and rebuilds.
+    public synchronized void setHorizonStart(LocalDate horizonStart) {
+        if (horizonStart == null) {
+            throw new IllegalArgumentException("Horizon start must be provided.");
+        }
+        this.horizonStart = horizonStart;
+        rebuild();
+    }
+
+    // Recomputes every table from the rules and the hotel's current occupancy. Quotes do this
+    // themselves when the tables are stale; call it to pay for the rebuild up front.
+    public synchronized void rebuild() {
+        stale = false; // cleared first: an event during the build marks the new tables stale
+        Rules rules = new Rules(seasons, weekendAdjustments, occupancyTiers);
+        long origin = horizonStart.toEpochDay();
+        Map<RoomType, long[]> prefix = new EnumMap<>(RoomType.class);
+        for (RoomType type : RoomType.values()) {
+            long[] sums = new long[horizonDays + 1];
+            for (int i = 0; i < horizonDays; i++) {
+                sums[i + 1] = sums[i] + rules.factor(type, origin + i, hotel);
+            }
+            prefix.put(type, sums);
+        }
+        this.tables = new Tables(origin, prefix, rules);
+    }
+
+    // Caller must hold this.
+    private void subscribe() {
+        subscriber = new EventSubscriber();
+        hotel.getEvents().subscribe(subscriber);
+    }
+
+    // Tables to quote from, rebuilt first if they are stale or the day has moved on.
+    private Tables tables() {
+        Tables current = this.tables;
+        if (stale || (followsToday && current.origin != LocalDate.now().toEpochDay())) {
+            synchronized (this) {
+                if (followsToday && !horizonStart.equals(LocalDate.now())) {
+                    horizonStart = LocalDate.now();
+                    rebuild();
+                } else if (stale) {
+                    rebuild();
+                }
+                current = this.tables;
+            }
+        }
+        return current;
+    }
+
+    private final class EventSubscriber implements Flow.Subscriber<HotelEvent> {
+        private volatile Flow.Subscription subscription;
+        private volatile boolean cancelled;
+
+        void cancel() {
+            cancelled = true;
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(HotelEvent event) {
+            Tables current = tables; // null while the constructor builds the first ones
+            if (current != null && current.rules.occupancyTiers.length > 0
+                    && (event instanceof HotelEvent.BookingCreated || event instanceof HotelEvent.BookingCancelled
+                        || event instanceof HotelEvent.RoomAdded || event instanceof HotelEvent.RoomServiceChanged)) {
+                stale = true;
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            // dropped for falling behind: events may be missing, so rebuild and follow again
+            stale = true;
+            synchronized (QuoteEngine.this) {
+                if (subscriber == this) {
+                    subscribe();
+                }
+            }
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    // -------------- QUOTES --------------
+
+    public Quote quote(ARoom room, LocalDate checkIn, LocalDate checkOut) {
+        if (room == null) {
+            throw new IllegalArgumentException("Room must be provided.");
+        }
+        checkStay(checkIn, checkOut);
+        return new Quote(room, room.getRoomType(), checkIn, checkOut, total(baseCents(room), factorSum(tables(), room.getRoomType(), checkIn, checkOut)));
+    }
+
+    // "From" price for the type: its cheapest in-service room. Null if the type has none.
+    public Quote quote(RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        if (roomType == null) {
+            throw new IllegalArgumentException("Room type must be provided.");
+        }
+        checkStay(checkIn, checkOut);
+        ARoom cheapest = null;
+        for (ARoom room : hotel.getRoomsSortedByPrice()) {
+            if (room.getRoomType() == roomType && room.isInService()) {
+                cheapest = room;
+                break;
+            }
+        }
+        if (cheapest == null) {
+            return null;
+        }
+        return new Quote(null, roomType, checkIn, checkOut, total(baseCents(cheapest), factorSum(tables(), roomType, checkIn, checkOut)));
+    }
+
+    // Quotes every room for the same stay, e.g. a whole search result: the factor sum is
+    // looked up once per type, then each room costs one multiplication.
+    public List<Quote> quoteAll(List<ARoom> rooms, LocalDate checkIn, LocalDate checkOut) {
+        checkStay(checkIn, checkOut);
+        Tables current = tables();
+        long[] sums = new long[RoomType.values().length];
+        Arrays.fill(sums, -1); // factor sums are never negative
+        List<Quote> quotes = new ArrayList<>(rooms.size());
+        for (ARoom room : rooms) {
+            int type = room.getRoomType().ordinal();
+            if (sums[type] < 0) {
+                sums[type] = factorSum(current, room.getRoomType(), checkIn, checkOut);
+            }
+            quotes.add(new Quote(room, room.getRoomType(), checkIn, checkOut, total(baseCents(room), sums[type])));
+        }
+        return quotes;
+    }
+
+    private long factorSum(Tables current, RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        long from = checkIn.toEpochDay() - current.origin;
+        long to = checkOut.toEpochDay() - current.origin;
+        long[] sums = current.prefix.get(roomType);
+        if (from >= 0 && to <= horizonDays) {
+            return sums[(int) to] - sums[(int) from];
+        }
+        long total = 0;
+        for (long day = checkIn.toEpochDay(); day < checkOut.toEpochDay(); day++) {
+            long index = day - current.origin;
+            total += index >= 0 && index < horizonDays ? sums[(int) index + 1] - sums[(int) index]
+                    : current.rules.factor(roomType, day, hotel);
+        }
+        return total;
+    }
+
+    private void checkStay(LocalDate checkIn, LocalDate checkOut) {
+        if (checkIn == null || checkOut == null || !checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("Check-out date must be after check-in date.");
+        }
+        if (checkOut.toEpochDay() - checkIn.toEpochDay() > horizonDays) {
+            throw new IllegalArgumentException("Stays longer than " + horizonDays + " nights cannot be quoted.");
+        }
+    }
+
+    private static long baseCents(ARoom room) {
+        return BigDecimal.valueOf(room.getPricePerNight()).setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    // cents x basis points -> money, rounded half-even to the cent
+    private static BigDecimal total(long baseCents, long factorSum) {
+        return BigDecimal.valueOf(Math.multiplyExact(baseCents, factorSum), 6).setScale(2, RoundingMode.HALF_EVEN);
+    }
+
+    // 1.15 -> +1500, 0.90 -> -1000
+    private static long adjustmentOf(BigDecimal multiplier) {
+        if (multiplier == null || multiplier.signum() <= 0) {
+            throw new IllegalArgumentException("Multiplier must be positive.");
+        }
+        try {
+            return multiplier.movePointRight(4).longValueExact() - ONE;
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Multiplier " + multiplier + " has more than 4 decimal places.", e);
+        }
+    }
+
+    // -------------- RULE AND TABLE SNAPSHOTS --------------
+
+    private static final class Season {
+        final RoomType roomType;
+        final long fromDay;
+        final long toDay;
+        final long adjustment;
+
+        Season(RoomType roomType, long fromDay, long toDay, long adjustment) {
+            this.roomType = roomType;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.adjustment = adjustment;
+        }
+    }
+
+    private static final class OccupancyTier {
+        final double minOccupancy;
+        final long adjustment;
+
+        OccupancyTier(double minOccupancy, long adjustment) {
+            this.minOccupancy = minOccupancy;
+            this.adjustment = adjustment;
+        }
+    }
+
+    // Immutable copy of the rules a set of tables was built from.
+    private static final class Rules {
+        final Season[] seasons;
+        final long[] weekendAdjustments = new long[RoomType.values().length];
+        final OccupancyTier[] occupancyTiers;
+
+        Rules(List<Season> seasons, Map<RoomType, Long> weekendAdjustments, List<OccupancyTier> occupancyTiers) {
+            this.seasons = seasons.toArray(new Season[0]);
+            for (Map.Entry<RoomType, Long> entry : weekendAdjustments.entrySet()) {
+                this.weekendAdjustments[entry.getKey().ordinal()] = entry.getValue();
+            }
+            this.occupancyTiers = occupancyTiers.toArray(new OccupancyTier[0]);
+        }
+
+        // Factor of one night, in basis points.
+        long factor(RoomType roomType, long epochDay, Hotel hotel) {
+            long factor = ONE;
+            for (int i = seasons.length - 1; i >= 0; i--) {
+                Season season = seasons[i];
+                if ((season.roomType == null || season.roomType == roomType) && epochDay >= season.fromDay && epochDay <= season.toDay) {
+                    factor += season.adjustment;
+                    break;
+                }
+            }
+            DayOfWeek dayOfWeek = LocalDate.ofEpochDay(epochDay).getDayOfWeek();
+            if (dayOfWeek == DayOfWeek.FRIDAY || dayOfWeek == DayOfWeek.SATURDAY) {
+                factor += weekendAdjustments[roomType.ordinal()];
+            }
+            if (occupancyTiers.length > 0) {
+                double occupancy = hotel.occupancyRate(roomType, LocalDate.ofEpochDay(epochDay));
+                for (int i = occupancyTiers.length - 1; i >= 0; i--) {
+                    if (occupancy >= occupancyTiers[i].minOccupancy) {
+                        factor += occupancyTiers[i].adjustment;
+                        break;
+                    }
+                }
+            }
+            return Math.max(0, factor);
+        }
+    }
+
+    private static final class Tables {
+        final long origin;
+        final Map<RoomType, long[]> prefix;
+        final Rules rules;
+
+        Tables(long origin, Map<RoomType, long[]> prefix, Rules rules) {
+            this.origin = origin;
+            this.prefix = prefix;
+            this.rules = rules;
+        }
+    }
+}
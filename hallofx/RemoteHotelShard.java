@@ -0,0 +1,201 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// -------------- REMOTE HOTEL SHARD --------------
+// A cluster shard served by a HotelServer in another process, usually on loopback, over
+// the server's HTTP/JSON API. Results are detached copies built from the responses, not
+// live objects: a booking's guest has no email, and cancelling one shard booking does not
+// change a copy fetched earlier. Rooms are cached by ID as responses mention them (room
+// data only changes when a room is taken in or out of service).
+// Status codes map back to Hotel's exceptions: 400 to IllegalArgumentException, 404 to
+// null (or IllegalArgumentException where Hotel throws), 409 and 503 to
+// IllegalStateException; an unreachable server is an UncheckedIOException.
+class RemoteHotelShard implements HotelShard {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String name;
+    private final String url;
+    private final HttpClient client;
+    private final Map<String, ARoom> rooms = new ConcurrentHashMap<>();
+
+    public RemoteHotelShard(String name, String url) {
+        this.name = name;
+        this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    public String getUrl() { return url; }
+
+    @Override public String getName() { return name; }
+
+    @Override
+    public void addRoom(ARoom room) {
+        if (room == null || room.getRoomId() == null) {
+            throw new IllegalArgumentException("Room or Room ID cannot be null.");
+        }
+        String body = "{\"roomId\": " + HotelServer.quote(room.getRoomId())
+                + ", \"type\": " + HotelServer.quote(room.getRoomType().name())
+                + ", \"pricePerNight\": " + room.getPricePerNight()
+                + ", \"capacity\": " + room.getCapacity() + "}";
+        toRoom(HotelServer.parseJsonObject(send(post("/rooms", body))));
+    }
+
+    @Override
+    public ARoom findRoom(String roomId) {
+        ARoom cached = rooms.get(roomId);
+        if (cached != null) {
+            return cached;
+        }
+        String json = send(get("/rooms/" + encode(roomId)));
+        return json == null ? null : toRoom(HotelServer.parseJsonObject(json));
+    }
+
+    @Override
+    public List<ARoom> findAvailableRooms(LocalDate checkIn, LocalDate checkOut, RoomSearchFilter filter) {
+        if (checkIn == null || checkOut == null) {
+            throw new IllegalArgumentException("Check-in and check-out dates must be provided.");
+        }
+        StringBuilder query = new StringBuilder("/rooms?checkIn=").append(checkIn).append("&checkOut=").append(checkOut);
+        if (filter != null) {
+            if (filter.getRoomType() != null) {
+                query.append("&type=").append(filter.getRoomType().name());
+            }
+            if (filter.getMinCapacity() > 0) {
+                query.append("&minCapacity=").append(filter.getMinCapacity());
+            }
+            if (filter.getMaxPricePerNight() != Double.MAX_VALUE) {
+                query.append("&maxPrice=").append(filter.getMaxPricePerNight());
+            }
+        }
+        List<Map<String, String>> objects = HotelServer.parseJsonObjectList(send(get(query.toString())));
+        List<ARoom> available = new ArrayList<>(objects.size());
+        for (Map<String, String> object : objects) {
+            available.add(toRoom(object));
+        }
+        return available;
+    }
+
+    @Override
+    public Booking createBooking(String guestName, String email, String roomId, LocalDate checkIn, LocalDate checkOut) {
+        if (roomId == null || checkIn == null || checkOut == null) {
+            throw new IllegalArgumentException("All parameters for booking must be provided.");
+        }
+        String body = "{\"name\": " + HotelServer.quote(guestName)
+                + ", \"email\": " + HotelServer.quote(email)
+                + ", \"roomId\": " + HotelServer.quote(roomId)
+                + ", \"checkIn\": " + HotelServer.quote(checkIn.toString())
+                + ", \"checkOut\": " + HotelServer.quote(checkOut.toString()) + "}";
+        return toBooking(HotelServer.parseJsonObject(send(post("/bookings", body))));
+    }
+
+    @Override
+    public Booking findBooking(String bookingId) {
+        String json = send(get("/bookings/" + encode(bookingId)));
+        return json == null ? null : toBooking(HotelServer.parseJsonObject(json));
+    }
+
+    @Override
+    public Booking cancelBooking(String bookingId) {
+        String json = send(HttpRequest.newBuilder(URI.create(url + "/bookings/" + encode(bookingId))).timeout(REQUEST_TIMEOUT).DELETE().build());
+        if (json == null) {
+            throw new IllegalArgumentException("Error: Booking ID " + bookingId + " not found for cancellation.");
+        }
+        return toBooking(HotelServer.parseJsonObject(json));
+    }
+
+    // -------------- HTTP --------------
+
+    private HttpRequest get(String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(url + pathAndQuery)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(url + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    // Body of a 2xx response, or null for 404.
+    private String send(HttpRequest request) {
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Shard " + name + " at " + url + " is unreachable: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shard " + name + ".", e);
+        }
+        int status = response.statusCode();
+        if (status >= 200 && status < 300) {
+            return response.body();
+        }
+        if (status == 404) {
+            return null;
+        }
+        String message = errorMessage(response.body());
+        if (status == 400) {
+            throw new IllegalArgumentException(message);
+        }
+        throw new IllegalStateException(status == 409 ? message : "Shard " + name + " answered " + status + ": " + message);
+    }
+
+    private static String errorMessage(String body) {
+        try {
+            String error = HotelServer.parseJsonObject(body).get("error");
+            return error != null ? error : body;
+        } catch (IllegalArgumentException e) {
+            return body;
+        }
+    }
+
+    private static String encode(String pathSegment) {
+        return URLEncoder.encode(pathSegment, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    // -------------- JSON to detached domain objects --------------
+
+    private ARoom toRoom(Map<String, String> json) {
+        ARoom room = HotelStore.newRoom(RoomType.valueOf(json.get("type")), json.get("roomId"),
+                Double.parseDouble(json.get("pricePerNight")), Integer.parseInt(json.get("capacity")));
+        room.setInService(Boolean.parseBoolean(json.get("inService")));
+        rooms.put(room.getRoomId(), room);
+        return room;
+    }
+
+    private Booking toBooking(Map<String, String> json) {
+        String roomId = json.get("roomId");
+        ARoom room = findRoom(roomId);
+        if (room == null) {
+            throw new IllegalStateException("Shard " + name + " returned a booking for unknown room " + roomId + ".");
+        }
+        Guest guest = new Guest(Hotel.handleOf(json.get("guestId"), 'G'), json.get("guestName"), null);
+        Booking booking = new Booking(Hotel.handleOf(json.get("bookingId"), 'B'), guest, room,
+                LocalDate.parse(json.get("checkIn")), LocalDate.parse(json.get("checkOut")));
+        booking.setBookingStatus(BookingStatus.valueOf(json.get("status")));
+        return booking;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// -------------- ROOM CALENDAR (per-room availability index) --------------
+// Confirmed stays of one room keyed by check-in date. Confirmed stays of a room never
+// overlap, so the stay with the latest check-in before a desired check-out is the only
+// one that can conflict with it. The calendar's lock makes check-then-book atomic for
+// its room; callers must hold it around findConflict/addStay/removeStay.
+class RoomCalendar {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeMap<LocalDate, Booking> stays = new TreeMap<>();
+    private final ARoom room;
+    private final int roomIndex; // dense index of the room in its hotel
+
+    public RoomCalendar(ARoom room, int roomIndex) {
+        this.room = room;
+        this.roomIndex = roomIndex;
+    }
+
+    public ARoom getRoom() { return room; }
+    public int getRoomIndex() { return roomIndex; }
+
+    public void lock() { lock.lock(); }
+    public void unlock() { lock.unlock(); }
+
+    public Booking findConflict(LocalDate desiredCheckIn, LocalDate desiredCheckOut) {
+        Map.Entry<LocalDate, Booking> candidate = stays.lowerEntry(desiredCheckOut);
+        if (candidate != null && candidate.getValue().getCheckOutDate().isAfter(desiredCheckIn)) {
+            return candidate.getValue();
+        }
+        return null;
+    }
+
+    public void addStay(Booking booking) {
+        stays.put(booking.getCheckInDate(), booking);
+    }
+
+    public void removeStay(Booking booking) {
+        stays.remove(booking.getCheckInDate(), booking);
+    }
+
+    // Free nights around a conflict-free stay: from the previous stay's check-out to checkIn
+    // plus from checkOut to the next stay's check-in, each capped at cap. Smaller is a
+    // tighter fit, leaving fewer unsellable gaps.
+    public long gapAround(LocalDate checkIn, LocalDate checkOut, long cap) {
+        Map.Entry<LocalDate, Booking> before = stays.lowerEntry(checkIn);
+        Map.Entry<LocalDate, Booking> after = stays.ceilingEntry(checkOut);
+        long gapBefore = before == null ? cap : Math.min(cap, ChronoUnit.DAYS.between(before.getValue().getCheckOutDate(), checkIn));
+        long gapAfter = after == null ? cap : Math.min(cap, ChronoUnit.DAYS.between(checkOut, after.getKey()));
+        return gapBefore + gapAfter;
+    }
+
+    public int size() { return stays.size(); }
+}
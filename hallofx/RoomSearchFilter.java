@@ -0,0 +1,32 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+// -------------- ROOM SEARCH FILTER --------------
+// Criteria for Hotel.findAvailableRooms. Rooms out of service are never returned.
+class RoomSearchFilter {
+    public static final RoomSearchFilter ANY = new RoomSearchFilter(null, 0, Double.MAX_VALUE);
+
+    private final RoomType roomType; // null matches every type
+    private final int minCapacity;
+    private final double maxPricePerNight;
+
+    public RoomSearchFilter(RoomType roomType, int minCapacity, double maxPricePerNight) {
+        this.roomType = roomType;
+        this.minCapacity = minCapacity;
+        this.maxPricePerNight = maxPricePerNight;
+    }
+
+    public RoomType getRoomType() { return roomType; }
+    public int getMinCapacity() { return minCapacity; }
+    public double getMaxPricePerNight() { return maxPricePerNight; }
+
+    public boolean matches(ARoom room) {
+        return room.isInService()
+            && (roomType == null || room.getRoomType() == roomType)
+            && room.getCapacity() >= minCapacity
+            && room.getPricePerNight() <= maxPricePerNight;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.time.LocalDate;
+
+// -------------- ROOM TYPE BOOKING --------------
+// A stay sold against a RoomType ("any DELUXE room") instead of a room, as a channel
+// manager sells. It holds one unit of the type's inventory per night until a room is
+// assigned (Hotel.assignRoom/assignRooms), which turns it into an ordinary Booking.
+// The "T<handle>" string ID exists only at the API edge.
+class RoomTypeBooking {
+    private final int handle;
+    private final Guest guest;
+    private final RoomType roomType;
+    private final LocalDate checkInDate;
+    private final LocalDate checkOutDate;
+    private BookingStatus status = BookingStatus.CONFIRMED; // guarded by this
+    private Booking assignedBooking;                       // guarded by this
+
+    RoomTypeBooking(int handle, Guest guest, RoomType roomType, LocalDate checkInDate, LocalDate checkOutDate) {
+        if (!checkOutDate.isAfter(checkInDate)) {
+            throw new IllegalArgumentException("Check-out date must be after check-in date.");
+        }
+        this.handle = handle;
+        this.guest = guest;
+        this.roomType = roomType;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+    }
+
+    int getHandle() { return handle; }
+    public String getTypeBookingId() { return "T" + handle; }
+    public Guest getGuest() { return guest; }
+    public RoomType getRoomType() { return roomType; }
+    public LocalDate getCheckInDate() { return checkInDate; }
+    public LocalDate getCheckOutDate() { return checkOutDate; }
+    public synchronized BookingStatus getStatus() { return status; }
+    // The booking of the assigned room, or null while the stay is unassigned.
+    public synchronized Booking getAssignedBooking() { return assignedBooking; }
+
+    synchronized void setStatus(BookingStatus status) { this.status = status; }
+    synchronized void assign(Booking booking) { this.assignedBooking = booking; }
+
+    @Override public String toString() {
+        Booking assigned = getAssignedBooking();
+        return "Type booking ID: " + getTypeBookingId() + ", Guest: " + guest.getName() + ", Type: " + roomType + ", Dates: " + checkInDate
+             + " to " + checkOutDate + ", Status: " + getStatus() + (assigned == null ? ", unassigned" : ", Room: " + assigned.getRoom().getRoomId());
+    }
+}
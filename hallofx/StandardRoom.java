@@ -0,0 +1,16 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+// -------------- STANDARD ROOM --------------
+class StandardRoom extends ARoom {
+    public StandardRoom(String roomId, double pricePerNight, int capacity) {
+        super(roomId, RoomType.STANDARD, pricePerNight, capacity);
+    }
+    @Override 
+    public String getRoomSpecificDetails() { 
+        return "Standard Room features: Basic and comfortable accommodation.";
+    }
+}
@@ -0,0 +1,14 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+// -------------- SUITE ROOM --------------
+class SuiteRoom extends ARoom {
+    public SuiteRoom(String roomId, double pricePerNight, int capacity) { super(roomId, RoomType.SUITE, pricePerNight, capacity); }
+    @Override 
+    public String getRoomSpecificDetails() { 
+        return "Suite features: Luxurious with separate living area and premium services.";
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package hallofx;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// -------------- ROOM TYPE INVENTORY --------------
+// Units sold per RoomType per night: stays booked in concrete rooms plus type-level
+// bookings not yet assigned a room. A type-level sale succeeds only while every night of it
+// stays within the type's limit (its rooms in service plus the overbooking allowance),
+// checked and counted with one compare-and-set per night; if a later night is full, the
+// nights already taken are given back. No locks on that path, so sales of one type race only
+// on the nights they share.
+// Counters live in chunks of 1,024 nights, allocated on first use. The chunk directory
+// covers only the chunks in use, starting at firstChunk, and is replaced (never changed in
+// place) under the lock when a chunk is added, so readers just follow the volatile reference.
+class TypeInventory {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    private static final class Directory {
+        final long firstChunk;
+        final AtomicIntegerArray[][] chunks; // [type][chunk - firstChunk]
+
+        Directory(long firstChunk, AtomicIntegerArray[][] chunks) {
+            this.firstChunk = firstChunk;
+            this.chunks = chunks;
+        }
+    }
+
+    private volatile Directory directory = new Directory(0, new AtomicIntegerArray[RoomType.values().length][0]);
+    private final AtomicIntegerArray allowances = new AtomicIntegerArray(RoomType.values().length);
+
+    // Rooms of the type that may be sold per night beyond those in service.
+    public int getAllowance(RoomType roomType) { return allowances.get(roomType.ordinal()); }
+
+    public void setAllowance(RoomType roomType, int rooms) {
+        if (rooms < 0) {
+            throw new IllegalArgumentException("Overbooking allowance cannot be negative.");
+        }
+        allowances.set(roomType.ordinal(), rooms);
+    }
+
+    public int getSold(RoomType roomType, long epochDay) {
+        AtomicIntegerArray chunk = chunk(roomType, epochDay);
+        return chunk == null ? 0 : chunk.get((int) (epochDay & CHUNK_MASK));
+    }
+
+    // Counts one unit on every night of [fromDay, toDay) if none of them would exceed
+    // roomsInService + allowance; otherwise counts nothing and returns false.
+    public boolean tryReserve(RoomType roomType, long fromDay, long toDay, int roomsInService) {
+        int limit = roomsInService + getAllowance(roomType);
+        for (long day = fromDay; day < toDay; day++) {
+            AtomicIntegerArray chunk = chunkForWrite(roomType, day);
+            int i = (int) (day & CHUNK_MASK);
+            int sold;
+            do {
+                sold = chunk.get(i);
+                if (sold >= limit) {
+                    add(roomType, fromDay, day, -1);
+                    return false;
+                }
+            } while (!chunk.compareAndSet(i, sold, sold + 1));
+        }
+        return true;
+    }
+
+    // Unconditional change of every night of [fromDay, toDay): concrete stays, releases and
+    // recovery.
+    public void add(RoomType roomType, long fromDay, long toDay, int delta) {
+        for (long day = fromDay; day < toDay; day++) {
+            chunkForWrite(roomType, day).addAndGet((int) (day & CHUNK_MASK), delta);
+        }
+    }
+
+    private AtomicIntegerArray chunk(RoomType roomType, long epochDay) {
+        Directory d = directory;
+        long index = (epochDay >> CHUNK_BITS) - d.firstChunk;
+        AtomicIntegerArray[] perType = d.chunks[roomType.ordinal()];
+        return index < 0 || index >= perType.length ? null : perType[(int) index];
+    }
+
+    private AtomicIntegerArray chunkForWrite(RoomType roomType, long epochDay) {
+        AtomicIntegerArray chunk = chunk(roomType, epochDay);
+        return chunk != null ? chunk : allocate(roomType, epochDay);
+    }
+
+    // Adds the chunk holding epochDay, widening the directory the way
+    // OccupancyCalendar.ensureHorizon widens its day array.
+    private synchronized AtomicIntegerArray allocate(RoomType roomType, long epochDay) {
+        AtomicIntegerArray chunk = chunk(roomType, epochDay);
+        if (chunk != null) {
+            return chunk;
+        }
+        Directory d = directory;
+        long wanted = epochDay >> CHUNK_BITS;
+        int span = d.chunks[0].length;
+        long first = span == 0 ? wanted : Math.min(d.firstChunk, wanted);
+        long end = span == 0 ? wanted + 1 : Math.max(d.firstChunk + span, wanted + 1);
+        long length = end - first;
+        if (length > span) {
+            // Grow by at least half again so dates creeping forward do not copy on every chunk.
+            length = Math.max(length, span + (span >> 1));
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Booked dates span too many years.");
+        }
+        if (first < d.firstChunk) {
+            first = end - length;
+        }
+        AtomicIntegerArray[][] chunks = new AtomicIntegerArray[d.chunks.length][];
+        for (int t = 0; t < chunks.length; t++) {
+            chunks[t] = new AtomicIntegerArray[(int) length];
+            if (span > 0) {
+                System.arraycopy(d.chunks[t], 0, chunks[t], (int) (d.firstChunk - first), span);
+            }
+        }
+        chunk = new AtomicIntegerArray(1 << CHUNK_BITS);
+        chunks[roomType.ordinal()][(int) (wanted - first)] = chunk;
+        directory = new Directory(first, chunks);
+        return chunk;
+    }
+}